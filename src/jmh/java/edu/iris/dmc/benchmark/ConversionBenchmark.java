@@ -0,0 +1,95 @@
+package edu.iris.dmc.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.station.converter.SeedToXmlDocumentConverter;
+import edu.iris.dmc.station.converter.XmlToSeedDocumentConverter;
+import edu.iris.dmc.station.converter.XmlToSeedFileConverter;
+
+/**
+ * Both conversion directions between object models, and the streaming XML to
+ * SEED file conversion.
+ *
+ * Scale 0 converts ANMO.one.xml and its SEED conversion as they are, so every
+ * scale is the same stations repeated. Documents are read again for every
+ * invocation of xmlToSeed, converters must not rely on having seen them before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConversionBenchmark {
+
+	@Param({ "0", "10", "100" })
+	public int scale;
+
+	private Volume volume;
+	private File xml;
+	private File target;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		File seed = Datasets.scaledSeed(Math.max(1, scale));
+		xml = scale == 0 ? Datasets.resource(Datasets.XML) : Datasets.scaledXml(scale);
+		volume = IrisUtil.readSeed(seed);
+		target = File.createTempFile("benchmark", ".dataless");
+		target.deleteOnExit();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		target.delete();
+	}
+
+	@Benchmark
+	public FDSNStationXML seedToXml() throws Exception {
+		return SeedToXmlDocumentConverter.getInstance().convert(volume);
+	}
+
+	@Benchmark
+	public Volume xmlToSeed(Documents documents) throws Exception {
+		return XmlToSeedDocumentConverter.getInstance().convert(documents.document);
+	}
+
+	@Benchmark
+	public long xmlToSeedLarge() throws Exception {
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		XmlToSeedFileConverter.getInstance().convert(xml, target, args);
+		return target.length();
+	}
+
+	@State(Scope.Thread)
+	public static class Documents {
+
+		private FDSNStationXML document;
+
+		@Setup(Level.Invocation)
+		public void read(ConversionBenchmark benchmark) throws Exception {
+			// XmlToSeedDocumentConverter fills in missing comment dates, start clean
+			document = IrisUtil.readXml(benchmark.xml);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package edu.iris.dmc.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.station.converter.XmlToSeedFileConverter;
+
+/**
+ * Inputs shared by the benchmarks: the files in src/test/resources and
+ * synthetic volumes made of scale copies of the ANMO.one.xml stations.
+ *
+ */
+public final class Datasets {
+
+	public static final String XML = "ANMO.one.xml";
+	public static final String SEED = "CU.dataless";
+
+	private Datasets() {
+	}
+
+	public static File resource(String name) {
+		return new File(Datasets.class.getClassLoader().getResource(name).getFile());
+	}
+
+	/**
+	 * Write ANMO.one.xml with its stations repeated scale times, every copy
+	 * under its own station code.
+	 *
+	 * @param scale
+	 * @return a temporary file deleted on exit
+	 */
+	public static File scaledXml(int scale) throws IOException, JAXBException {
+		File source = resource(XML);
+		FDSNStationXML document = IrisUtil.readXml(source);
+		if (scale > 1) {
+			Network network = document.getNetwork().get(0);
+			for (int i = 1; i < scale; i++) {
+				FDSNStationXML copy = IrisUtil.readXml(source);
+				List<Station> stations = copy.getNetwork().get(0).getStations();
+				for (int j = 0; j < stations.size(); j++) {
+					Station station = stations.get(j);
+					station.setCode(String.format("S%04d", (i * stations.size() + j) % 10000));
+					network.addStation(station);
+				}
+			}
+		}
+		File file = File.createTempFile("scaled-" + scale + "-", ".xml");
+		file.deleteOnExit();
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			IrisUtil.marshal(document, outputStream);
+		}
+		return file;
+	}
+
+	/**
+	 *
+	 * @param scale
+	 * @return {@link #scaledXml(int)} converted to a dataless, deleted on exit
+	 */
+	public static File scaledSeed(int scale) throws IOException, JAXBException {
+		File xml = scaledXml(scale);
+		File file = File.createTempFile("scaled-" + scale + "-", ".dataless");
+		file.deleteOnExit();
+		XmlToSeedFileConverter.getInstance().convert(xml, file);
+		return file;
+	}
+}
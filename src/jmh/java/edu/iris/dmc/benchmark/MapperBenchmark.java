@@ -0,0 +1,118 @@
+package edu.iris.dmc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Channel;
+import edu.iris.dmc.fdsn.station.model.Coefficients;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.FIR;
+import edu.iris.dmc.fdsn.station.model.PolesZeros;
+import edu.iris.dmc.fdsn.station.model.ResponseStage;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.control.station.B053;
+import edu.iris.dmc.seed.control.station.B054;
+import edu.iris.dmc.seed.control.station.B061;
+import edu.iris.dmc.station.mapper.CoefficientsMapper;
+import edu.iris.dmc.station.mapper.FirMapper;
+import edu.iris.dmc.station.mapper.FirToBlocketteMapper;
+import edu.iris.dmc.station.mapper.PolesZerosMapper;
+
+/**
+ * Single response stage mappers, in both directions. Stages come from
+ * ANMO.one.xml, FIR filters from CI_OAT.dataless.
+ *
+ * Run with <code>-prof gc</code> for the allocation rate of each mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapperBenchmark {
+
+	private PolesZeros polesZeros;
+	private Coefficients coefficients;
+	private FIR fir;
+	private B053 b053;
+	private B054 b054;
+	private B061 b061;
+	private double[] firCoefficients;
+
+	@Setup
+	public void setup() throws Exception {
+		FDSNStationXML document = IrisUtil.readXml(Datasets.resource(Datasets.XML));
+		for (Channel channel : document.getNetwork().get(0).getStations().get(0).getChannels()) {
+			if (channel.getResponse() == null || channel.getResponse().getStage() == null) {
+				continue;
+			}
+			for (ResponseStage stage : channel.getResponse().getStage()) {
+				if (polesZeros == null && stage.getPolesZeros() != null) {
+					polesZeros = stage.getPolesZeros();
+				}
+				if (coefficients == null && stage.getCoefficients() != null
+						&& !stage.getCoefficients().getNumerator().isEmpty()) {
+					coefficients = stage.getCoefficients();
+				}
+			}
+		}
+		b053 = PolesZerosMapper.map(polesZeros);
+		b054 = CoefficientsMapper.map(coefficients);
+
+		for (Blockette blockette : IrisUtil.readSeed(Datasets.resource("CI_OAT.dataless")).getAll()) {
+			if (blockette.getType() == 61) {
+				b061 = (B061) blockette;
+				break;
+			}
+		}
+		fir = FirMapper.build(b061);
+		firCoefficients = FirMapper.coefficients(fir);
+	}
+
+	@Benchmark
+	public B053 polesZerosToSeed() throws Exception {
+		return PolesZerosMapper.map(polesZeros);
+	}
+
+	@Benchmark
+	public PolesZeros polesZerosToXml() throws Exception {
+		return PolesZerosMapper.map(b053);
+	}
+
+	@Benchmark
+	public B054 coefficientsToSeed() throws Exception {
+		return CoefficientsMapper.map(coefficients);
+	}
+
+	@Benchmark
+	public Coefficients coefficientsToXml() throws Exception {
+		return CoefficientsMapper.map(b054);
+	}
+
+	@Benchmark
+	public B061 firToSeed() throws Exception {
+		return FirToBlocketteMapper.map(fir);
+	}
+
+	@Benchmark
+	public FIR firToXml() throws Exception {
+		return FirMapper.build(b061);
+	}
+
+	@Benchmark
+	public B061 firCoefficientsToSeed() throws Exception {
+		return FirToBlocketteMapper.map(fir.getName(), fir.getSymmetry(), firCoefficients);
+	}
+}
@@ -0,0 +1,82 @@
+package edu.iris.dmc.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.station.util.BlocketteScanner;
+
+/**
+ * Parsing SEED and StationXML files into their object models.
+ *
+ * scale 0 reads the files from src/test/resources as they are, any other value
+ * reads ANMO.one.xml (and its SEED conversion) with its stations repeated scale
+ * times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+	@Param({ "0", "10", "100" })
+	public int scale;
+
+	private File seed;
+	private File xml;
+
+	@Setup
+	public void setup() throws Exception {
+		if (scale == 0) {
+			seed = Datasets.resource(Datasets.SEED);
+			xml = Datasets.resource(Datasets.XML);
+		} else {
+			seed = Datasets.scaledSeed(scale);
+			xml = Datasets.scaledXml(scale);
+		}
+	}
+
+	@Benchmark
+	public Volume readSeed() throws Exception {
+		return IrisUtil.readSeed(seed);
+	}
+
+	@Benchmark
+	public Volume readSeedMapped() throws Exception {
+		return IrisUtil.readSeedMapped(seed);
+	}
+
+	@Benchmark
+	public int scanSeed() throws Exception {
+		int count = 0;
+		try (BlocketteScanner scanner = IrisUtil.scanSeed(seed)) {
+			while (scanner.hasNext()) {
+				if (scanner.next().getType() == 52) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public FDSNStationXML readXml() throws Exception {
+		return IrisUtil.readXml(xml);
+	}
+}
@@ -0,0 +1,72 @@
+package edu.iris.dmc.benchmark;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.seed.BTime;
+import edu.iris.dmc.station.mapper.SeedStringBuilder;
+
+/**
+ * Date conversions done for every station, channel and comment. The
+ * ofPattern variants are what the code did before the formatters were shared,
+ * run main to compare them with gc.alloc.rate.norm from the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimeBenchmark {
+
+	private final String text = "2016-02-29T01:02:03";
+	private final ZonedDateTime time = ZonedDateTime.of(2016, 2, 29, 1, 2, 3, 400000, ZoneId.of("UTC"));
+	private final BTime bTime = new BTime(2016, 60, 1, 2, 3, 4);
+
+	@Benchmark
+	public ZonedDateTime parseOfPattern() {
+		DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss[z]").withZone(ZoneId.of("UTC"));
+		return ZonedDateTime.parse(text, format);
+	}
+
+	@Benchmark
+	public ZonedDateTime parse() {
+		return IrisUtil.toZonedDateTime(text);
+	}
+
+	@Benchmark
+	public String formatOfPattern() {
+		return DateTimeFormatter.ofPattern("yyyy,DDD,HH:mm:ss.SSSS").format(time);
+	}
+
+	@Benchmark
+	public String format() {
+		return SeedStringBuilder.formatDate(time);
+	}
+
+	@Benchmark
+	public ZonedDateTime fromBTime() {
+		return IrisUtil.toZonedDateTime(bTime);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(TimeBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
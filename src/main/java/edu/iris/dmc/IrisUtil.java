@@ -1,17 +1,24 @@
 package edu.iris.dmc;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
@@ -23,34 +30,107 @@ import edu.iris.dmc.seed.SeedException;
 import edu.iris.dmc.seed.Volume;
 import edu.iris.dmc.seed.blockette.util.BlocketteItrator;
 import edu.iris.dmc.seed.director.BlocketteDirector;
+import edu.iris.dmc.station.util.BlocketteScanner;
+import edu.iris.dmc.station.util.MappedFileInputStream;
+import edu.iris.dmc.station.util.ReadAheadInputStream;
+import edu.iris.dmc.station.util.StationFilter;
 import edu.iris.dmc.station.util.StationIterator;
+import edu.iris.dmc.station.util.StationXmlContext;
+import edu.iris.dmc.station.util.XmlStationIndex;
 
 public class IrisUtil {
 
+	private static final ZoneId UTC = ZoneId.of("UTC");
+	private static final DateTimeFormatter XML_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss[z]")
+			.withZone(UTC);
+
 	private IrisUtil() {
 	}
 
+	/**
+	 * 
+	 * @param file
+	 * @return true if file starts with the gzip magic bytes
+	 * @throws IOException
+	 */
+	public static boolean isGzip(File file) throws IOException {
+		try (InputStream inputStream = new FileInputStream(file)) {
+			return inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+		}
+	}
+
+	/**
+	 * Open file for reading, a gzip file is inflated on another thread while
+	 * the caller reads what was already inflated, see
+	 * {@link ReadAheadInputStream}.
+	 * 
+	 * @param file plain or gzip compressed
+	 * @return the uncompressed content of file
+	 * @throws IOException
+	 */
+	public static InputStream newInputStream(File file) throws IOException {
+		if (!isGzip(file)) {
+			return new FileInputStream(file);
+		}
+		return new ReadAheadInputStream(new GZIPInputStream(new FileInputStream(file), 65536));
+	}
+
+	/**
+	 * 
+	 * @param file
+	 * @param compress gzip what is written
+	 * @return a buffered stream writing to file
+	 * @throws IOException
+	 */
+	public static OutputStream newOutputStream(File file, boolean compress) throws IOException {
+		OutputStream outputStream = new FileOutputStream(file);
+		if (!compress) {
+			return new BufferedOutputStream(outputStream, 65536);
+		}
+		try {
+			return new BufferedOutputStream(new GZIPOutputStream(outputStream, 65536), 65536);
+		} catch (IOException e) {
+			outputStream.close();
+			throw e;
+		}
+	}
+
 	public static FDSNStationXML readXml(File file) throws JAXBException, IOException {
-		try (final FileInputStream inputStream = new FileInputStream(file)) {
+		try (final InputStream inputStream = newInputStream(file)) {
 			return readXml(inputStream);
 		}
 	}
 
 	public static FDSNStationXML readXml(InputStream inputStream) throws JAXBException {
-		JAXBContext jaxbContext = JAXBContext.newInstance(edu.iris.dmc.fdsn.station.model.ObjectFactory.class);
-		Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+		Unmarshaller jaxbUnmarshaller = StationXmlContext.getUnmarshaller();
 		return (FDSNStationXML) jaxbUnmarshaller.unmarshal(inputStream);
 	}
 
 	public static void marshal(FDSNStationXML document, OutputStream stream) throws JAXBException {
-		JAXBContext jaxbContext = JAXBContext.newInstance(edu.iris.dmc.fdsn.station.model.ObjectFactory.class);
-		Marshaller marshaller = jaxbContext.createMarshaller();
-		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		Marshaller marshaller = StationXmlContext.getMarshaller();
 		marshaller.marshal(document, stream);
 	}
 
 	public static Volume readSeed(File file) throws SeedException, IOException {
-		try (final FileInputStream inputStream = new FileInputStream(file)) {
+		try (final InputStream inputStream = newInputStream(file)) {
+			return readSeed(inputStream);
+		}
+	}
+
+	/**
+	 * Same as {@link #readSeed(File)} but records are read from a memory mapping
+	 * of the file, see {@link MappedFileInputStream}.
+	 * 
+	 * @param file
+	 * @return the volume
+	 * @throws SeedException
+	 * @throws IOException
+	 */
+	public static Volume readSeedMapped(File file) throws SeedException, IOException {
+		if (isGzip(file)) {
+			return readSeed(file);
+		}
+		try (final MappedFileInputStream inputStream = new MappedFileInputStream(file)) {
 			return readSeed(inputStream);
 		}
 	}
@@ -66,6 +146,24 @@ public class IrisUtil {
 		return volume;
 	}
 
+	/**
+	 * Split a SEED volume into blockettes without parsing them, see
+	 * {@link BlocketteScanner}.
+	 * 
+	 * @param file
+	 * @return a closable iterator, it is important that user close this iterator
+	 * @throws IOException
+	 */
+	public static BlocketteScanner scanSeed(File file) throws IOException {
+		InputStream inputStream = isGzip(file) ? newInputStream(file) : new MappedFileInputStream(file);
+		try {
+			return new BlocketteScanner(inputStream);
+		} catch (IOException | RuntimeException e) {
+			inputStream.close();
+			throw e;
+		}
+	}
+
 	/**
 	 * 
 	 * @param file
@@ -74,6 +172,34 @@ public class IrisUtil {
 	 * @throws IOException
 	 */
 	public static StationIterator newStationIterator(File file) throws IOException {
+		return newStationIterator(file, null);
+	}
+
+	/**
+	 * 
+	 * @param file
+	 * @param filter stations and channels to return, null for all
+	 * @return a closable iterator, it is important that user close this iterator or
+	 *         the underlying inputstream
+	 * @throws IOException
+	 */
+	public static StationIterator newStationIterator(File file, StationFilter filter) throws IOException {
+		return newStationIterator(file, filter, false);
+	}
+
+	/**
+	 * 
+	 * @param file
+	 * @param filter  stations and channels to return, null for all
+	 * @param indexed read only the stations filter accepts through the
+	 *                {@link XmlStationIndex} of file, built and kept next to it
+	 *                if missing
+	 * @return a closable iterator, it is important that user close this iterator or
+	 *         the underlying inputstream
+	 * @throws IOException
+	 */
+	public static StationIterator newStationIterator(File file, StationFilter filter, boolean indexed)
+			throws IOException {
 
 		if (file.exists()) {
 			if (file.isDirectory()) {
@@ -87,8 +213,16 @@ public class IrisUtil {
 		}
 		InputStream inputStream = null;
 		try {
-			inputStream = new FileInputStream(file);
-			return new StationIterator(inputStream);
+			if (isGzip(file)) {
+				// offsets into a compressed file are of no use
+				inputStream = newInputStream(file);
+			} else if (indexed && filter != null) {
+				XmlStationIndex index = XmlStationIndex.load(file);
+				inputStream = index.open(file, index.find(filter));
+			} else {
+				inputStream = new FileInputStream(file);
+			}
+			return new StationIterator(inputStream, filter);
 
 		} catch (final IOException | RuntimeException ex) {
 			try {
@@ -103,12 +237,58 @@ public class IrisUtil {
 	}
 
 	public static ZonedDateTime now() {
-		return ZonedDateTime.now(ZoneId.of("UTC"));
+		return ZonedDateTime.now(UTC);
 	}
 
 	public static ZonedDateTime toZonedDateTime(String source) {
-		DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss[z]").withZone(ZoneId.of("UTC"));
-		return ZonedDateTime.parse(source, format);
+		if (source != null && source.length() == 19) {
+			ZonedDateTime time = parseLocalDateTime(source);
+			if (time != null) {
+				return time;
+			}
+		}
+		return ZonedDateTime.parse(source, XML_DATE_TIME);
+	}
+
+	/**
+	 * Parse yyyy-MM-ddTHH:mm:ss without a zone, the shape almost every date in
+	 * StationXML has, without going through a formatter.
+	 * 
+	 * @return null when source has another shape or a field out of range, those
+	 *         are left to the formatter
+	 */
+	private static ZonedDateTime parseLocalDateTime(String source) {
+		if (source.charAt(4) != '-' || source.charAt(7) != '-' || source.charAt(10) != 'T'
+				|| source.charAt(13) != ':' || source.charAt(16) != ':') {
+			return null;
+		}
+		int year = digits(source, 0, 4);
+		int month = digits(source, 5, 7);
+		int day = digits(source, 8, 10);
+		int hour = digits(source, 11, 13);
+		int minute = digits(source, 14, 16);
+		int second = digits(source, 17, 19);
+		if (year < 1 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+			return null;
+		}
+		try {
+			return ZonedDateTime.of(year, month, day, hour, minute, second, 0, UTC);
+		} catch (DateTimeException e) {
+			// the formatter resolves some of these, 24:00:00 for example
+			return null;
+		}
+	}
+
+	private static int digits(String source, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = source.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
 	}
 
 	public static ZonedDateTime toZonedDateTime(BTime bTime) {
@@ -116,10 +296,11 @@ public class IrisUtil {
 			return null;
 		}
 
-		DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy,DDD,HH:mm:ss.nZ");
-		String date = bTime.toSeedString() + "00000+0000";
-
-		return ZonedDateTime.parse(date, dateTimeFormatter);
+		// BTime fractions are tenths of a millisecond
+		return ZonedDateTime.of(LocalDate.ofYearDay(bTime.getYear(), bTime.getDayOfYear()),
+				LocalTime.of(bTime.getHour(), bTime.getMinute(), bTime.getSecond(),
+						bTime.getTenthMilliSecond() * 100000),
+				ZoneOffset.UTC);
 	}
 
 	public static BTime toBTime(ZonedDateTime time) {
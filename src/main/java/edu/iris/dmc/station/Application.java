@@ -20,20 +20,37 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXParseException;
 
 import ch.qos.logback.classic.Level;
+import edu.iris.dmc.station.converter.ConversionMetrics;
 import edu.iris.dmc.station.converter.MetadataFileFormatConverter;
+import edu.iris.dmc.station.converter.RecordLength;
 import edu.iris.dmc.station.converter.SeedToXmlFileConverter;
 import edu.iris.dmc.station.converter.XmlToSeedFileConverter;
+import edu.iris.dmc.station.mapper.MetadataConverterException;
+import edu.iris.dmc.station.server.ConversionServer;
+import edu.iris.dmc.station.watch.ConversionManifest;
+import edu.iris.dmc.station.watch.DirectoryWatcher;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.IExecutionExceptionHandler;
@@ -63,6 +80,87 @@ public class Application implements Callable<Integer> {
 			"Ignore errors and exception and move to the next file." })
 	private boolean continueOnError;
 
+	@Option(names = { "--large" }, description = {
+			"Convert one station at a time so memory use is bounded by the largest station." })
+	private boolean large;
+
+	@Option(names = { "--dictionary" }, description = {
+			"XML to SEED: write each distinct response once as response dictionary blockettes (B041-B048)",
+			"referenced from the channels by B060, instead of inline with every channel." })
+	private boolean dictionary;
+
+	@Option(names = { "--threads" }, description = {
+			"Number of files to convert in parallel, default is 1.",
+			"A single XML file converted with --large uses them to map stations instead." })
+	private int threads = 1;
+
+	@Option(names = { "--network" }, description = {
+			"StationXML input: comma separated network codes to convert, * and ? are wildcards." })
+	private String network;
+
+	@Option(names = { "--station" }, description = {
+			"StationXML input: comma separated station codes to convert, * and ? are wildcards." })
+	private String station;
+
+	@Option(names = { "--location" }, description = {
+			"StationXML input: comma separated location codes to convert, * and ? are wildcards, -- is empty." })
+	private String location;
+
+	@Option(names = { "--channel" }, description = {
+			"StationXML input: comma separated channel codes to convert, * and ? are wildcards." })
+	private String channel;
+
+	@Option(names = { "--starttime" }, description = {
+			"StationXML input: only convert epochs ending after this time, yyyy-MM-ddTHH:mm:ss" })
+	private String startTime;
+
+	@Option(names = { "--endtime" }, description = {
+			"StationXML input: only convert epochs starting before this time, yyyy-MM-ddTHH:mm:ss" })
+	private String endTime;
+
+	@Option(names = { "--record-length" }, paramLabel = "BYTES|auto", description = {
+			"XML to SEED: logical record length, a power of two from 4096 to 32768, default is 4096.",
+			"auto picks it from the number and size of the stations when there is an index (see --index),",
+			"else from the size of the input, which gives 4096 or 8192." })
+	private String recordLength;
+
+	@Option(names = { "--compress" }, description = {
+			"Write the output gzip compressed. Compressed input is always recognized and read as is." })
+	private boolean compress;
+
+	@Option(names = { "--index" }, description = {
+			"StationXML input with --network or --station: keep an index of where each station is next to the",
+			"file, FILE.idx, and read only the stations selected. Later conversions of the same file reuse it." })
+	private boolean index;
+
+	@Option(names = { "--stats" }, description = {
+			"Print what the conversion did once done: time per phase, blockettes by type, stations,",
+			"channels, bytes and dictionary lookups." })
+	private boolean stats;
+
+	@Option(names = { "--stats-json" }, paramLabel = "FILE", description = {
+			"Write the same statistics as --stats to FILE as JSON." })
+	private File statsJson;
+
+	@Option(names = { "--serve" }, description = {
+			"Run as a local HTTP server instead of converting files: POST SEED to /seed2xml or XML to /xml2seed,",
+			"GET /stats for latency percentiles. Requests are converted on --threads threads, one per",
+			"available processor by default." })
+	private boolean serve;
+
+	@Option(names = { "--port" }, description = "Port the server listens on, on the loopback address. Default is 8080.")
+	private int port = 8080;
+
+	@Option(names = { "--watch" }, description = {
+			"Convert the files of the input directories that are new or changed since the last run into the",
+			"output directory, then keep watching them for more." })
+	private boolean watch;
+
+	@Option(names = { "--manifest" }, paramLabel = "FILE", description = {
+			"With --watch, where the files already converted are recorded.",
+			"Default is .converter-manifest in the output directory." })
+	private File manifest;
+
 	@Option(names = { "--org", "--organization" }, description = { "The organization writing this document." })
 	private String organization;
 
@@ -72,11 +170,13 @@ public class Application implements Callable<Integer> {
 	@Option(names = { "-V", "--version" }, versionHelp = true, description = "Print version info")
 	private boolean versionRequested;
 
-	@Parameters(arity = "1..*", description = "Any number of input files SEED|XML")
+	@Parameters(arity = "0..*", description = "Any number of input files SEED|XML")
 	private List<File> source;
 
 	private File target;
 
+	private final ConversionMetrics metrics = new ConversionMetrics();
+
 	@Option(names = { "-o", "--output" }, description = "Output file or directory, default is System.out")
 	public void setTarget(File target) {
 		try {
@@ -132,6 +232,21 @@ public class Application implements Callable<Integer> {
 			}
 		}
 
+		if (serve) {
+			return serve();
+		}
+		if (source == null || source.isEmpty()) {
+			throw new ParameterException(spec.commandLine(), "Missing required parameter: input files SEED|XML");
+		}
+		if (recordLength != null) {
+			try {
+				RecordLength.parse(recordLength);
+			} catch (MetadataConverterException e) {
+				throw new ParameterException(spec.commandLine(), e.getMessage());
+			}
+		}
+		List<Path> roots = watch ? watchRoots() : null;
+
 		try {
 			Map<String, String> config = new HashMap<>();
 			if (organization != null) {
@@ -140,13 +255,115 @@ public class Application implements Callable<Integer> {
 			if (label != null) {
 				config.put("label", label);
 			}
-			convert(source, target, config);
+			if (large) {
+				config.put("large", Boolean.TRUE.toString());
+			}
+			if (dictionary) {
+				config.put("dictionary", Boolean.TRUE.toString());
+			}
+			if (index) {
+				config.put("index", Boolean.TRUE.toString());
+			}
+			if (compress) {
+				config.put("compress", Boolean.TRUE.toString());
+			}
+			putIfSet(config, "record-length", recordLength);
+			putIfSet(config, "network", network);
+			putIfSet(config, "station", station);
+			putIfSet(config, "location", location);
+			putIfSet(config, "channel", channel);
+			putIfSet(config, "starttime", startTime);
+			putIfSet(config, "endtime", endTime);
+			if (watch) {
+				watch(roots, target, config);
+			} else if (threads > 1) {
+				convertParallel(source, target, config);
+			} else {
+				convert(source, target, config);
+			}
+			if (stats) {
+				spec.commandLine().getErr().println(metrics);
+			}
+			if (statsJson != null) {
+				Files.write(statsJson.toPath(), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		return 0;
+	}
+
+	/**
+	 * Serve conversions until the JVM is shut down.
+	 */
+	private int serve() {
+		try {
+			// a server is there to take concurrent requests, one per core unless told otherwise
+			int poolSize = spec.commandLine().getParseResult().hasMatchedOption("--threads") ? threads
+					: Runtime.getRuntime().availableProcessors();
+			ConversionServer server = new ConversionServer(
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), port), poolSize);
+			CountDownLatch stopped = new CountDownLatch(1);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				server.close();
+				stopped.countDown();
+			}));
+			server.start();
+			spec.commandLine().getErr().println("Listening on " + server.getAddress());
+			stopped.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 		return 0;
 	}
 
+	/**
+	 * Check the arguments of --watch before anything runs.
+	 *
+	 * @return the watched directories
+	 */
+	private List<Path> watchRoots() {
+		if (target == null || !target.isDirectory()) {
+			throw new ParameterException(spec.commandLine(), "--watch needs an output directory");
+		}
+		List<Path> roots = new ArrayList<>();
+		for (File directory : source) {
+			if (!directory.isDirectory()) {
+				throw new ParameterException(spec.commandLine(), "--watch needs input directories: " + directory);
+			}
+			Path root = directory.toPath().toAbsolutePath().normalize();
+			if (target.toPath().toAbsolutePath().normalize().startsWith(root)) {
+				// converted files would be converted back
+				throw new ParameterException(spec.commandLine(),
+						"The output directory cannot be inside a watched directory: " + directory);
+			}
+			roots.add(root);
+		}
+		return roots;
+	}
+
+	/**
+	 * Convert new and changed files until the JVM is shut down.
+	 */
+	private void watch(List<Path> roots, File target, Map<String, String> config) throws Exception {
+		File manifestFile = manifest != null ? manifest : new File(target, ".converter-manifest");
+		try (DirectoryWatcher watcher = new DirectoryWatcher(roots, new ConversionManifest(manifestFile.toPath()),
+				path -> convertFile(path.toFile(), target, config))) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					logger.error("Closing the watcher", e);
+				}
+			}));
+			int converted = watcher.start();
+			spec.commandLine().getErr().printf("Converted %d files, watching for changes%n", converted);
+			watcher.run();
+		}
+	}
+
 	private void convert(List<File> list, File target, Map<String, String> config) throws Exception {
 		for (File source : list) {
 			if (logger.isDebugEnabled()) {
@@ -171,48 +388,149 @@ public class Application implements Callable<Integer> {
 			if (source.length() == 0) {
 				throw new IOException("Couldn't process empty file " + source);
 			}
-			if (logger.isInfoEnabled()) {
-				logger.info("Converting {} -> {}", source.getAbsolutePath(),
-						target != null ? target.getAbsolutePath() : "");
+			try {
+				convertFile(source, target, config);
+			} catch (Exception e) {
+				handle(source, e);
 			}
-			MetadataFileFormatConverter<File> converter = null;
-			String extension = null;
-			if (source.getName().toLowerCase().endsWith("xml")) {
-				converter = XmlToSeedFileConverter.getInstance();
-				extension = "dataless";
-			} else {
-				converter = SeedToXmlFileConverter.getInstance();
-				extension = "xml";
+		}
+	}
+
+	/**
+	 * Convert independent files on a fixed pool of threads. Errors are reported
+	 * in the order the files were listed, not in the order they happened.
+	 */
+	private void convertParallel(List<File> list, File target, Map<String, String> config) throws Exception {
+		List<File> files = new ArrayList<>();
+		for (File source : list) {
+			collect(source, files);
+		}
+		if (files.size() < 2 || target == null || !target.isDirectory()) {
+			// nothing to spread over threads or all output goes to one place
+			config.put("threads", Integer.toString(threads));
+			convert(list, target, config);
+			return;
+		}
+
+		long start = System.nanoTime();
+		long bytes = 0;
+		int done = 0;
+		int failures = 0;
+		RuntimeException stop = null;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>(files.size());
+			for (File file : files) {
+				futures.add(executor.submit(() -> {
+					convertFile(file, target, config);
+					return null;
+				}));
 			}
-			if (target == null) {
-				
-			} else {
-				if (target.isDirectory()) {
-					target = new File(target.getPath() + "/" + source.getName() + ".converted." + extension);
+			for (int i = 0; i < files.size() && stop == null; i++) {
+				File file = files.get(i);
+				try {
+					futures.get(i).get();
+					bytes += file.length();
+				} catch (ExecutionException e) {
+					failures++;
+					Throwable cause = e.getCause();
+					try {
+						handle(file, cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+					} catch (RuntimeException failure) {
+						// not continuing on error, files not converted yet are dropped
+						for (int j = i + 1; j < futures.size(); j++) {
+							futures.get(j).cancel(true);
+						}
+						stop = failure;
+					}
 				}
+				done++;
 			}
-			try {
-				if (logger.isDebugEnabled()) {
-					logger.debug("{} -> {}", source.getName(), target.getName());
-				}
-				converter.convert(source, target, config);
-			} catch (Exception e) {
-				StringBuilder messageBuilder = new StringBuilder("Exception parsing file: " + source.getName() + "\n");
-				if (e.getCause() instanceof SAXParseException) {
-					SAXParseException s = (SAXParseException) e.getCause();
-					messageBuilder.append("Error when validating XML against FDSN-Station XSD schema\n" + "lineNumber: "
-							+ s.getLineNumber() + ";\ncolumnNumber: " + s.getColumnNumber() + ";\n"
-							+ s.getMessage().substring(s.getMessage().indexOf(":") + 2));
-				} else {
-					messageBuilder.append(e.getMessage());
-				}
+		} finally {
+			executor.shutdownNow();
+		}
 
-				if (continueOnError) {
-					logger.error(messageBuilder.toString());
-				} else {
-					throw new RuntimeException(messageBuilder.toString(), e);
-				}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		spec.commandLine().getErr().printf("Converted %d files (%d failed), %.1f MB in %.1f s: %.1f files/s, %.1f MB/s%n",
+				done, failures, bytes / 1e6, seconds, done / seconds, bytes / 1e6 / seconds);
+		if (stop != null) {
+			throw stop;
+		}
+	}
+
+	/**
+	 * Flatten directories the same way {@link #convert(File, File, Map)} walks
+	 * them, rejecting the same files.
+	 */
+	private void collect(File source, List<File> files) throws IOException {
+		if (source == null || source.isHidden()) {
+			throw new IOException("Couldn't process file " + source);
+		}
+		if (source.isDirectory()) {
+			for (File f : source.listFiles()) {
+				collect(f, files);
+			}
+		} else {
+			if (source.length() == 0) {
+				throw new IOException("Couldn't process empty file " + source);
 			}
+			files.add(source);
+		}
+	}
+
+	private void convertFile(File source, File target, Map<String, String> config) throws Exception {
+		if (logger.isInfoEnabled()) {
+			logger.info("Converting {} -> {}", source.getAbsolutePath(),
+					target != null ? target.getAbsolutePath() : "");
+		}
+		MetadataFileFormatConverter<File> converter = null;
+		String extension = null;
+		String name = source.getName().toLowerCase();
+		if (name.endsWith(".gz")) {
+			name = name.substring(0, name.length() - 3);
+		}
+		if (name.endsWith("xml")) {
+			converter = XmlToSeedFileConverter.getInstance();
+			extension = "dataless";
+		} else {
+			converter = SeedToXmlFileConverter.getInstance();
+			extension = "xml";
+		}
+		if (target == null) {
+
+		} else {
+			if (target.isDirectory()) {
+				target = new File(target.getPath() + "/" + source.getName() + ".converted." + extension
+						+ (compress ? ".gz" : ""));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("{} -> {}", source.getName(), target.getName());
+		}
+		converter.convert(source, target, config, metrics);
+	}
+
+	private static void putIfSet(Map<String, String> config, String key, String value) {
+		if (value != null) {
+			config.put(key, value);
+		}
+	}
+
+	private void handle(File source, Exception e) {
+		StringBuilder messageBuilder = new StringBuilder("Exception parsing file: " + source.getName() + "\n");
+		if (e.getCause() instanceof SAXParseException) {
+			SAXParseException s = (SAXParseException) e.getCause();
+			messageBuilder.append("Error when validating XML against FDSN-Station XSD schema\n" + "lineNumber: "
+					+ s.getLineNumber() + ";\ncolumnNumber: " + s.getColumnNumber() + ";\n"
+					+ s.getMessage().substring(s.getMessage().indexOf(":") + 2));
+		} else {
+			messageBuilder.append(e.getMessage());
+		}
+
+		if (continueOnError) {
+			logger.error(messageBuilder.toString());
+		} else {
+			throw new RuntimeException(messageBuilder.toString(), e);
 		}
 	}
 
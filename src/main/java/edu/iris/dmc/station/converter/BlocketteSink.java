@@ -0,0 +1,108 @@
+package edu.iris.dmc.station.converter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.SeedException;
+import edu.iris.dmc.seed.control.station.B050;
+
+/**
+ * Destination of the blockettes mapped from one station.
+ *
+ * Station blockettes are written in the order they are given, dictionary
+ * blockettes are resolved to their canonical instance (and therefore to their
+ * lookup key) in the same order.
+ *
+ */
+interface BlocketteSink {
+
+	/**
+	 * Write the station blockette and remember its sequence for B011.
+	 */
+	void writeStation(String code, B050 b050) throws SeedException, IOException;
+
+	void write(Blockette blockette) throws SeedException, IOException;
+
+	/**
+	 * Add a dictionary blockette, or find the one already added, and hand the
+	 * result to action.
+	 */
+	<T extends Blockette> void lookup(T blockette, Consumer<T> action) throws SeedException, IOException;
+
+	/**
+	 * Same as {@link #lookup(Blockette, Consumer)} for a blockette that can only
+	 * be built once the lookups before it are resolved.
+	 */
+	<T extends Blockette> void lookupLater(Later<T> blockette, Consumer<T> action) throws SeedException, IOException;
+
+	/**
+	 * Same as {@link #write(Blockette)} for a blockette that can only be built
+	 * once the lookups before it are resolved.
+	 */
+	void writeLater(Later<? extends Blockette> blockette) throws SeedException, IOException;
+
+	/**
+	 * Run action at this point of the sequence, used for changes made to a
+	 * blockette after it was written.
+	 */
+	void run(Runnable action) throws SeedException, IOException;
+
+	/**
+	 * Builds a blockette when its turn comes.
+	 */
+	interface Later<T extends Blockette> {
+		T get() throws SeedException;
+	}
+
+	/**
+	 * Keeps everything it is given so it can be replayed later, on another
+	 * thread, against the sink that owns the output and the dictionary.
+	 */
+	static class Recorder implements BlocketteSink {
+
+		private interface Step {
+			void apply(BlocketteSink sink) throws SeedException, IOException;
+		}
+
+		private final List<Step> steps = new ArrayList<>();
+
+		@Override
+		public void writeStation(String code, B050 b050) {
+			steps.add(sink -> sink.writeStation(code, b050));
+		}
+
+		@Override
+		public void write(Blockette blockette) {
+			steps.add(sink -> sink.write(blockette));
+		}
+
+		@Override
+		public <T extends Blockette> void lookup(T blockette, Consumer<T> action) {
+			steps.add(sink -> sink.lookup(blockette, action));
+		}
+
+		@Override
+		public <T extends Blockette> void lookupLater(Later<T> blockette, Consumer<T> action) {
+			steps.add(sink -> sink.lookupLater(blockette, action));
+		}
+
+		@Override
+		public void writeLater(Later<? extends Blockette> blockette) {
+			steps.add(sink -> sink.writeLater(blockette));
+		}
+
+		@Override
+		public void run(Runnable action) {
+			steps.add(sink -> sink.run(action));
+		}
+
+		public void replay(BlocketteSink sink) throws SeedException, IOException {
+			for (Step step : steps) {
+				step.apply(sink);
+			}
+		}
+	}
+}
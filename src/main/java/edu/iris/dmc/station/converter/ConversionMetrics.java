@@ -0,0 +1,216 @@
+package edu.iris.dmc.station.converter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * What one or more conversions did: wall time per phase, blockettes by type,
+ * stations and channels, bytes read and written, dictionary lookups and
+ * response stage cache lookups.
+ *
+ * Phases never overlap within a conversion, their times add up to the time
+ * the conversion took. Dictionary hits are lookups answered by an entry
+ * already there, misses are lookups that had to add or search for one. Stage
+ * cache hits are response stages mapped to blockettes once and reused.
+ *
+ * Thread safe, one instance can collect every file of a run.
+ *
+ */
+public class ConversionMetrics {
+
+	public enum Phase {
+		/** reading and unmarshalling the input */
+		PARSE,
+		/** mapping stations from one model to the other */
+		MAP,
+		/** looking up and building the abbreviation dictionary */
+		DICTIONARY,
+		/** marshalling and writing the output */
+		WRITE
+	}
+
+	private final Map<Phase, LongAdder> nanos = new EnumMap<>(Phase.class);
+	private final Map<Integer, LongAdder> blockettes = new ConcurrentHashMap<>();
+	private final LongAdder files = new LongAdder();
+	private final LongAdder stations = new LongAdder();
+	private final LongAdder channels = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder dictionaryHits = new LongAdder();
+	private final LongAdder dictionaryMisses = new LongAdder();
+	private final LongAdder stageCacheHits = new LongAdder();
+	private final LongAdder stageCacheMisses = new LongAdder();
+
+	public ConversionMetrics() {
+		// every phase is there from the start, the map itself is never modified
+		for (Phase phase : Phase.values()) {
+			nanos.put(phase, new LongAdder());
+		}
+	}
+
+	/**
+	 *
+	 * @param phase
+	 * @param start value of {@link System#nanoTime()} when the phase started
+	 */
+	public void end(Phase phase, long start) {
+		add(phase, System.nanoTime() - start);
+	}
+
+	public void add(Phase phase, long nanoseconds) {
+		nanos.get(phase).add(nanoseconds);
+	}
+
+	public void countBlockette(int type) {
+		blockettes.computeIfAbsent(type, t -> new LongAdder()).increment();
+	}
+
+	public void countFile() {
+		files.increment();
+	}
+
+	public void countStation(int numberOfChannels) {
+		stations.increment();
+		channels.add(numberOfChannels);
+	}
+
+	public void addBytesRead(long bytes) {
+		bytesRead.add(bytes);
+	}
+
+	public void addBytesWritten(long bytes) {
+		bytesWritten.add(bytes);
+	}
+
+	public void dictionaryHit() {
+		dictionaryHits.increment();
+	}
+
+	public void dictionaryMiss() {
+		dictionaryMisses.increment();
+	}
+
+	public void addDictionary(long hits, long misses) {
+		dictionaryHits.add(hits);
+		dictionaryMisses.add(misses);
+	}
+
+	public void addStageCache(long hits, long misses) {
+		stageCacheHits.add(hits);
+		stageCacheMisses.add(misses);
+	}
+
+	/**
+	 * Add everything other collected to this.
+	 *
+	 * @param other
+	 */
+	public void add(ConversionMetrics other) {
+		for (Phase phase : Phase.values()) {
+			add(phase, other.getNanos(phase));
+		}
+		other.blockettes.forEach((type, count) -> blockettes.computeIfAbsent(type, t -> new LongAdder())
+				.add(count.sum()));
+		files.add(other.getFiles());
+		stations.add(other.getStations());
+		channels.add(other.getChannels());
+		bytesRead.add(other.getBytesRead());
+		bytesWritten.add(other.getBytesWritten());
+		addDictionary(other.getDictionaryHits(), other.getDictionaryMisses());
+		addStageCache(other.getStageCacheHits(), other.getStageCacheMisses());
+	}
+
+	public long getNanos(Phase phase) {
+		return nanos.get(phase).sum();
+	}
+
+	/**
+	 *
+	 * @return milliseconds spent in each phase, in phase order
+	 */
+	public Map<String, Double> getPhases() {
+		Map<String, Double> phases = new LinkedHashMap<>();
+		for (Phase phase : Phase.values()) {
+			phases.put(phase.name().toLowerCase(), getNanos(phase) / 1e6);
+		}
+		return phases;
+	}
+
+	/**
+	 *
+	 * @return number of blockettes read or written by type
+	 */
+	public SortedMap<Integer, Long> getBlockettes() {
+		SortedMap<Integer, Long> counts = new TreeMap<>();
+		blockettes.forEach((type, count) -> counts.put(type, count.sum()));
+		return counts;
+	}
+
+	public long getFiles() {
+		return files.sum();
+	}
+
+	public long getStations() {
+		return stations.sum();
+	}
+
+	public long getChannels() {
+		return channels.sum();
+	}
+
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	public long getDictionaryHits() {
+		return dictionaryHits.sum();
+	}
+
+	public long getDictionaryMisses() {
+		return dictionaryMisses.sum();
+	}
+
+	public long getStageCacheHits() {
+		return stageCacheHits.sum();
+	}
+
+	public long getStageCacheMisses() {
+		return stageCacheMisses.sum();
+	}
+
+	public String toJson() throws IOException {
+		return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("Files: %d, stations: %d, channels: %d%n", getFiles(), getStations(),
+				getChannels()));
+		builder.append(String.format("Bytes: %d read, %d written%n", getBytesRead(), getBytesWritten()));
+		builder.append("Time:");
+		for (Map.Entry<String, Double> entry : getPhases().entrySet()) {
+			builder.append(String.format(" %s %.1f ms", entry.getKey(), entry.getValue()));
+		}
+		builder.append(String.format("%nDictionary: %d hits, %d misses%n", getDictionaryHits(),
+				getDictionaryMisses()));
+		builder.append(String.format("Stage cache: %d hits, %d misses%n", getStageCacheHits(),
+				getStageCacheMisses()));
+		builder.append("Blockettes:");
+		getBlockettes().forEach((type, count) -> builder.append(String.format(" %03d=%d", type, count)));
+		return builder.toString();
+	}
+}
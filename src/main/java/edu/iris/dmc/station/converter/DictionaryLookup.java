@@ -0,0 +1,239 @@
+package edu.iris.dmc.station.converter;
+
+import edu.iris.dmc.fdsn.station.model.Units;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.control.dictionary.B030;
+import edu.iris.dmc.seed.control.dictionary.B031;
+import edu.iris.dmc.seed.control.dictionary.B033;
+import edu.iris.dmc.seed.control.dictionary.B034;
+import edu.iris.dmc.station.mapper.ResponseDictionaryMapper;
+import edu.iris.dmc.station.mapper.UnitsMapper;
+import edu.iris.dmc.unit.InvalidUnitException;
+
+/**
+ * Constant time access to the abbreviation and response dictionary blockettes
+ * of a volume.
+ *
+ * The dictionary blockettes of the volume are put once, when the lookup is
+ * created, in an open addressing map per dictionary type keyed on the
+ * primitive lookup key. A reader that fills the volume as it goes adds every
+ * dictionary blockette it reads with {@link #add(Blockette)}. Only dictionary
+ * types the maps do not cover are still searched for in the volume.
+ *
+ * B034 units are also mapped to {@link Units} only once per key, callers get
+ * a copy they are free to modify.
+ *
+ * Not thread safe, use one instance per conversion.
+ *
+ */
+public class DictionaryLookup {
+
+	private final Volume volume;
+	private final IntMap[] abbreviations = new IntMap[50];
+	private final IntMap responses = new IntMap();
+	private final IntMap units = new IntMap();
+	// response blockettes without a known lookup key, searched for in the volume
+	private boolean otherResponses;
+	private long hits;
+	private long misses;
+
+	public DictionaryLookup(Volume volume) {
+		this.volume = volume;
+		for (Blockette blockette : volume.getDictionaryBlockettes()) {
+			add(blockette);
+		}
+	}
+
+	/**
+	 * Index a dictionary blockette added to the volume after this lookup was
+	 * created. The first blockette of a type and key is kept, as the volume does.
+	 *
+	 * @param blockette
+	 */
+	public void add(Blockette blockette) {
+		int type = blockette.getType();
+		switch (type) {
+		case 30:
+			put(type, ((B030) blockette).getLookupKey(), blockette);
+			break;
+		case 31:
+			put(type, ((B031) blockette).getLookupKey(), blockette);
+			break;
+		case 33:
+			put(type, ((B033) blockette).getLookupKey(), blockette);
+			break;
+		case 34:
+			put(type, ((B034) blockette).getLookupKey(), blockette);
+			break;
+		case 41:
+		case 42:
+		case 43:
+		case 44:
+		case 47:
+		case 48:
+			int key = ResponseDictionaryMapper.getLookupKey(blockette);
+			if (responses.get(key) == null) {
+				responses.put(key, blockette);
+			}
+			break;
+		default:
+			if (type > 40) {
+				otherResponses = true;
+			}
+			break;
+		}
+	}
+
+	private void put(int type, int key, Blockette blockette) {
+		IntMap map = abbreviations[type];
+		if (map == null) {
+			map = new IntMap();
+			abbreviations[type] = map;
+		}
+		if (map.get(key) == null) {
+			map.put(key, blockette);
+		}
+	}
+
+	/**
+	 * Same as {@link Volume#getDictionaryBlockette(int, int)}
+	 *
+	 * @param type
+	 * @param key
+	 * @return the blockette or null if not found
+	 */
+	public Blockette get(int type, int key) {
+		if (!indexed(type)) {
+			misses++;
+			return volume.getDictionaryBlockette(type, key);
+		}
+		IntMap map = abbreviations[type];
+		Blockette blockette = map == null ? null : (Blockette) map.get(key);
+		if (blockette != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return blockette;
+	}
+
+	/**
+	 * Same as {@link Volume#getResponseDictionaryBlockette(int)}
+	 *
+	 * @param key
+	 * @return the blockette or null if not found
+	 */
+	public Blockette getResponse(int key) {
+		Blockette blockette = (Blockette) responses.get(key);
+		if (blockette != null) {
+			hits++;
+		} else {
+			misses++;
+			if (otherResponses) {
+				blockette = volume.getResponseDictionaryBlockette(key);
+			}
+		}
+		return blockette;
+	}
+
+	private static boolean indexed(int type) {
+		return type == 30 || type == 31 || type == 33 || type == 34;
+	}
+
+	/**
+	 * The B034 with this lookup key mapped to {@link Units}. Mapping is done once
+	 * per key, every call gets its own copy.
+	 *
+	 * @param key
+	 * @return the units or null if there is no such B034
+	 * @throws InvalidUnitException
+	 */
+	public Units getUnits(int key) throws InvalidUnitException {
+		Units result = (Units) units.get(key);
+		if (result != null) {
+			hits++;
+		} else {
+			result = UnitsMapper.map((B034) get(34, key));
+			if (result == null) {
+				return null;
+			}
+			units.put(key, result);
+		}
+		Units copy = new Units();
+		copy.setName(result.getName());
+		copy.setDescription(result.getDescription());
+		return copy;
+	}
+
+	/**
+	 *
+	 * @return number of lookups served from the index
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 *
+	 * @return number of lookups not found in the index
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * int to object map with linear probing, kept at most half full.
+	 */
+	private static class IntMap {
+		private int[] keys = new int[16];
+		private Object[] values = new Object[16];
+		private int size;
+
+		Object get(int key) {
+			int mask = keys.length - 1;
+			for (int i = index(key, mask); values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return values[i];
+				}
+			}
+			return null;
+		}
+
+		void put(int key, Object value) {
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+			}
+			int mask = keys.length - 1;
+			int i = index(key, mask);
+			while (values[i] != null) {
+				if (keys[i] == key) {
+					values[i] = value;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		}
+
+		private void resize() {
+			int[] oldKeys = keys;
+			Object[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new Object[oldValues.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != null) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int index(int key, int mask) {
+			// spread sequential lookup keys over the table
+			return (key * 0x9E3779B9 >>> 16 ^ key) & mask;
+		}
+	}
+}
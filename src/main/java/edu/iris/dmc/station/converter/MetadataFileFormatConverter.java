@@ -14,6 +14,13 @@ public interface MetadataFileFormatConverter<File> {
 
 	public void convert(File source, File target, Map<String, String> args)
 			throws MetadataConverterException, IOException;
+
+	/**
+	 * Same as {@link #convert(Object, Object, Map)}, adding what the conversion
+	 * did to metrics.
+	 */
+	public void convert(File source, File target, Map<String, String> args, ConversionMetrics metrics)
+			throws MetadataConverterException, IOException;
 	
 	public void convert(InputStream source, OutputStream target, Map<String, String> args)
 			throws MetadataConverterException, IOException;
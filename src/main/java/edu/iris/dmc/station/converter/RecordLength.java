@@ -0,0 +1,100 @@
+package edu.iris.dmc.station.converter;
+
+import edu.iris.dmc.station.mapper.MetadataConverterException;
+
+/**
+ * Logical record length of the SEED volumes written, a power of two between
+ * 4096 and 32768, or chosen from the number and size of the stations of the
+ * volume.
+ *
+ * Every station starts on a new record, half a record per station is padding
+ * on average. Larger records only pay off once stations are large enough for
+ * that padding not to matter, then they mean fewer record headers and fewer,
+ * larger writes.
+ *
+ */
+public final class RecordLength {
+
+	public static final int MIN = 4096;
+	public static final int MAX = 32768;
+	public static final int DEFAULT = MIN;
+	public static final String AUTO = "auto";
+
+	// smaller volumes keep the length every reader expects
+	private static final long AUTO_MIN_VOLUME = 8L * 1024 * 1024;
+	// keeps the padding of the last record of a station around 6%
+	private static final int RECORDS_PER_STATION = 8;
+	// size of a station assumed when only the size of the volume is known
+	private static final int ESTIMATED_STATION_BYTES = 64 * 1024;
+
+	private RecordLength() {
+	}
+
+	/**
+	 *
+	 * @param value a record length, {@link #AUTO} or null
+	 * @return the record length, {@link #DEFAULT} for null and 0 for
+	 *         {@link #AUTO}
+	 * @throws MetadataConverterException if value is not a power of two between
+	 *                                    {@link #MIN} and {@link #MAX}
+	 */
+	public static int parse(String value) {
+		if (value == null) {
+			return DEFAULT;
+		}
+		if (AUTO.equalsIgnoreCase(value.trim())) {
+			return 0;
+		}
+		int length;
+		try {
+			length = Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			length = -1;
+		}
+		if (length < MIN || length > MAX || Integer.bitCount(length) != 1) {
+			throw new MetadataConverterException("Invalid record length " + value + ", expected " + AUTO
+					+ " or a power of two between " + MIN + " and " + MAX);
+		}
+		return length;
+	}
+
+	/**
+	 *
+	 * @param stations        number of stations in the volume
+	 * @param stationBytes    average bytes of SEED per station
+	 * @return the largest record length that keeps padding low, {@link #MIN}
+	 *         for small volumes
+	 */
+	public static int choose(int stations, long stationBytes) {
+		if (stations <= 0 || stations * stationBytes < AUTO_MIN_VOLUME) {
+			return MIN;
+		}
+		int length = MIN;
+		while (length < MAX && (long) length * 2 * RECORDS_PER_STATION <= stationBytes) {
+			length *= 2;
+		}
+		return length;
+	}
+
+	/**
+	 * Choose without knowing the stations, as if they were all of a modest size.
+	 * Padding cannot be ruled out for the volume's stations, so this never goes
+	 * above 8192.
+	 *
+	 * @param volumeBytes bytes of SEED in the volume
+	 * @return {@link #MIN} for small volumes, 8192 for the others
+	 */
+	public static int estimate(long volumeBytes) {
+		return choose((int) Math.min(Integer.MAX_VALUE, volumeBytes / ESTIMATED_STATION_BYTES),
+				ESTIMATED_STATION_BYTES);
+	}
+
+	/**
+	 *
+	 * @param length
+	 * @return the exponent of length, as in B010
+	 */
+	public static int toNthPower(int length) {
+		return Integer.numberOfTrailingZeros(length);
+	}
+}
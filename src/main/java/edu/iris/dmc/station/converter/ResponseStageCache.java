@@ -0,0 +1,320 @@
+package edu.iris.dmc.station.converter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.iris.dmc.fdsn.station.model.Coefficients;
+import edu.iris.dmc.fdsn.station.model.Coefficients.Denominator;
+import edu.iris.dmc.fdsn.station.model.Coefficients.Numerator;
+import edu.iris.dmc.fdsn.station.model.FIR;
+import edu.iris.dmc.fdsn.station.model.FloatNoUnitType;
+import edu.iris.dmc.fdsn.station.model.PoleZero;
+import edu.iris.dmc.fdsn.station.model.PolesZeros;
+import edu.iris.dmc.fdsn.station.model.Polynomial;
+import edu.iris.dmc.fdsn.station.model.Polynomial.Coefficient;
+import edu.iris.dmc.seed.SeedException;
+import edu.iris.dmc.seed.control.station.B053;
+import edu.iris.dmc.seed.control.station.B054;
+import edu.iris.dmc.seed.control.station.B061;
+import edu.iris.dmc.seed.control.station.B062;
+import edu.iris.dmc.seed.control.station.Number;
+import edu.iris.dmc.seed.control.station.Pole;
+import edu.iris.dmc.seed.control.station.Zero;
+import edu.iris.dmc.station.mapper.CoefficientsMapper;
+import edu.iris.dmc.station.mapper.FirMapper;
+import edu.iris.dmc.station.mapper.FirToBlocketteMapper;
+import edu.iris.dmc.station.mapper.PolesZerosMapper;
+import edu.iris.dmc.station.mapper.PolynomialMapper;
+
+/**
+ * Maps response stages to B053, B054, B061 and B062 blockettes once per
+ * distinct content.
+ *
+ * Stages are keyed on every value the mappers read, so two stages with the
+ * same key always map to the same blockette. The first one is mapped and kept
+ * as a template, every call returns a new copy of it that shares the
+ * template's numbers, ready for its own units and stage sequence.
+ *
+ * Thread safe, one instance can be shared by every thread of a conversion.
+ *
+ */
+public class ResponseStageCache {
+
+	// raw bits of a NaN no parser produces, stands for a missing value
+	private static final long NULL = 0x7ff0dead00000001L;
+
+	private final Map<Key, Object> templates = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public B053 map(PolesZeros pzs) throws SeedException {
+		Values values = new Values();
+		values.add(pzs.getNormalizationFactor());
+		values.add(pzs.getNormalizationFrequency() == null ? null : pzs.getNormalizationFrequency().getValue());
+		if (pzs.getZero() != null) {
+			values.add(pzs.getZero().size());
+			for (PoleZero zero : pzs.getZero()) {
+				values.add(zero.getReal());
+				values.add(zero.getImaginary());
+			}
+		}
+		if (pzs.getPole() != null) {
+			values.add(pzs.getPole().size());
+			for (PoleZero pole : pzs.getPole()) {
+				values.add(pole.getReal());
+				values.add(pole.getImaginary());
+			}
+		}
+		Key key = new Key(53, pzs.getPzTransferFunctionType(), null, values);
+		B053 template = (B053) templates.get(key);
+		if (template == null) {
+			template = (B053) put(key, PolesZerosMapper.map(pzs));
+		} else {
+			hits.increment();
+		}
+
+		B053 b = new B053();
+		b.setTransferFunctionType(template.getTransferFunctionType());
+		b.setNormalizationFactor(template.getNormalizationFactor());
+		b.setNormalizationFrequency(template.getNormalizationFrequency());
+		if (template.getZeros() != null) {
+			for (Zero zero : template.getZeros()) {
+				b.add(zero);
+			}
+		}
+		if (template.getPoles() != null) {
+			for (Pole pole : template.getPoles()) {
+				b.add(pole);
+			}
+		}
+		return b;
+	}
+
+	public B054 map(Coefficients c) throws SeedException {
+		Values values = new Values();
+		if (c.getNumerator() != null) {
+			values.add(c.getNumerator().size());
+			for (Numerator n : c.getNumerator()) {
+				values.add(n.getValue());
+				values.add(n.getPlusError());
+			}
+		}
+		if (c.getDenominator() != null) {
+			values.add(c.getDenominator().size());
+			for (Denominator d : c.getDenominator()) {
+				values.add(d.getValue());
+				values.add(d.getPlusError());
+			}
+		}
+		Key key = new Key(54, c.getCfTransferFunctionType(), null, values);
+		B054 template = (B054) templates.get(key);
+		if (template == null) {
+			template = (B054) put(key, CoefficientsMapper.map(c));
+		} else {
+			hits.increment();
+		}
+
+		B054 b = new B054();
+		b.setResponseType(template.getResponseType());
+		for (Number n : template.getNumerators()) {
+			b.addNumerator(n);
+		}
+		for (Number d : template.getDenominators()) {
+			b.addDenominator(d);
+		}
+		return b;
+	}
+
+	public B061 map(FIR f) throws SeedException {
+		double[] coefficients = FirMapper.coefficients(f);
+		Values values = new Values();
+		values.add(coefficients.length);
+		values.add(coefficients);
+		Key key = new Key(61, f.getSymmetry(), f.getName(), values);
+		B061 template = (B061) templates.get(key);
+		if (template == null) {
+			template = (B061) put(key, FirToBlocketteMapper.map(f.getName(), f.getSymmetry(), coefficients));
+		} else {
+			hits.increment();
+		}
+
+		B061 b = new B061();
+		if (template.getName() != null) {
+			b.setName(template.getName());
+		}
+		b.setSymetryCode(template.getSymetryCode());
+		for (Double d : template.getCoefficients()) {
+			b.addCoefficient(d);
+		}
+		return b;
+	}
+
+	public B062 map(Polynomial p) throws SeedException {
+		Values values = new Values();
+		values.add(p.getApproximationLowerBound());
+		values.add(p.getApproximationUpperBound());
+		values.add(p.getFrequencyLowerBound() == null ? null : p.getFrequencyLowerBound().getValue());
+		values.add(p.getFrequencyUpperBound() == null ? null : p.getFrequencyUpperBound().getValue());
+		values.add(p.getMaximumError());
+		if (p.getCoefficient() != null) {
+			values.add(p.getCoefficient().size());
+			for (Coefficient c : p.getCoefficient()) {
+				values.add(c);
+			}
+		}
+		Key key = new Key(62, p.getApproximationType(), null, values);
+		B062 template = (B062) templates.get(key);
+		if (template == null) {
+			template = (B062) put(key, PolynomialMapper.map(p));
+		} else {
+			hits.increment();
+		}
+
+		B062 b = new B062();
+		b.setApproximationType(template.getApproximationType());
+		b.setFrequencyUnit(template.getFrequencyUnit());
+		b.setLowerBoundOfApproximation(template.getLowerBoundOfApproximation());
+		b.setUpperBoundOfApproximation(template.getUpperBoundOfApproximation());
+		b.setLowerValidFrequencyBound(template.getLowerValidFrequencyBound());
+		b.setUpperValidFrequencyBound(template.getUpperValidFrequencyBound());
+		b.setMaximumAbsoluteError(template.getMaximumAbsoluteError());
+		if (template.getCoefficients() != null) {
+			for (Number n : template.getCoefficients()) {
+				b.add(n);
+			}
+		}
+		return b;
+	}
+
+	/**
+	 * Keep the first template mapped for key, another thread may have been
+	 * mapping the same stage at the same time.
+	 */
+	private Object put(Key key, Object template) {
+		Object previous = templates.putIfAbsent(key, template);
+		if (previous != null) {
+			hits.increment();
+			return previous;
+		}
+		misses.increment();
+		return template;
+	}
+
+	/**
+	 *
+	 * @return number of stages served from a template
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 *
+	 * @return number of stages that had to be mapped
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 *
+	 * @return hits over all stages, 0 if there were none
+	 */
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Response stages: %d mapped, %d reused, hit rate %.1f%%", getMisses(), getHits(),
+				getHitRate() * 100);
+	}
+
+	/**
+	 * Growable array of the raw bits of every number of a stage.
+	 */
+	private static class Values {
+		private long[] bits = new long[32];
+		private int size;
+
+		void add(double value) {
+			if (size == bits.length) {
+				bits = Arrays.copyOf(bits, size * 2);
+			}
+			bits[size++] = Double.doubleToRawLongBits(value);
+		}
+
+		void add(double[] values) {
+			if (size + values.length > bits.length) {
+				bits = Arrays.copyOf(bits, Math.max(size * 2, size + values.length));
+			}
+			for (double value : values) {
+				bits[size++] = Double.doubleToRawLongBits(value);
+			}
+		}
+
+		void add(Double value) {
+			if (value == null) {
+				add(Double.longBitsToDouble(NULL));
+			} else {
+				add(value.doubleValue());
+			}
+		}
+
+		void add(FloatNoUnitType value) {
+			if (value == null) {
+				add((Double) null);
+			} else {
+				add(value.getValue());
+				add(value.getMinusError());
+				add(value.getPlusError());
+			}
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(bits, size);
+		}
+	}
+
+	private static final class Key {
+		private final int type;
+		private final String text;
+		private final String name;
+		private final long[] values;
+		private final int hash;
+
+		Key(int type, String text, String name, Values values) {
+			this.type = type;
+			this.text = text;
+			this.name = name;
+			this.values = values.toArray();
+			int h = type;
+			h = 31 * h + (text == null ? 0 : text.hashCode());
+			h = 31 * h + (name == null ? 0 : name.hashCode());
+			this.hash = 31 * h + Arrays.hashCode(this.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && type == other.type && Arrays.equals(values, other.values)
+					&& (text == null ? other.text == null : text.equals(other.text))
+					&& (name == null ? other.name == null : name.equals(other.name));
+		}
+	}
+}
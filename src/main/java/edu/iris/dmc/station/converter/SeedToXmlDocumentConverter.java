@@ -5,8 +5,6 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
 
-import javax.xml.datatype.DatatypeConfigurationException;
-
 import edu.iris.dmc.IrisUtil;
 import edu.iris.dmc.fdsn.station.model.Channel;
 import edu.iris.dmc.fdsn.station.model.Coefficients;
@@ -64,31 +62,40 @@ import edu.iris.dmc.station.mapper.PolesZerosMapper;
 import edu.iris.dmc.station.mapper.PolynomialMapper;
 import edu.iris.dmc.station.mapper.ResponseListMapper;
 import edu.iris.dmc.station.mapper.StationMapper;
-import edu.iris.dmc.station.mapper.UnitsMapper;
 
 public class SeedToXmlDocumentConverter implements MetadataDocumentFormatConverter<Volume, FDSNStationXML> {
 
 	private static SeedToXmlDocumentConverter INSTANCE = new SeedToXmlDocumentConverter();
 
-	public static MetadataDocumentFormatConverter<Volume, FDSNStationXML> getInstance() {
+	public static SeedToXmlDocumentConverter getInstance() {
 		return INSTANCE;
 	}
 
 	@Override
 	public FDSNStationXML convert(Volume volume) throws MetadataConverterException, IOException {
+		if (volume == null) {
+			throw new IllegalArgumentException("Container cannot be null");
+		}
+		return convert(volume, new DictionaryLookup(volume));
+	}
+
+	/**
+	 * 
+	 * @param volume
+	 * @param dictionary lookup over the dictionary blockettes of volume
+	 * @return the document
+	 * @throws MetadataConverterException
+	 * @throws IOException
+	 */
+	public FDSNStationXML convert(Volume volume, DictionaryLookup dictionary)
+			throws MetadataConverterException, IOException {
 
 		if (volume == null) {
 			throw new IllegalArgumentException("Container cannot be null");
 		}
 
-		FDSNStationXML document = new FDSNStationXML();
+		FDSNStationXML document = createDocument();
 		try {
-			document.setSource("IRIS-DMC");
-			document.setCreated(IrisUtil.now());
-			document.setSchemaVersion(BigDecimal.valueOf(1.0));
-			document.setModule("IRIS converter | version: ");
-			document.setModuleURI("https://seiscode.iris.washington.edu/projects/stationxml-converter/wiki");
-
 			volume.getB010();
 			// volume.getB011();
 
@@ -97,16 +104,10 @@ public class SeedToXmlDocumentConverter implements MetadataDocumentFormatConvert
 
 			boolean overWrite = true;
 			for (B050 b050 : volume.getB050s()) {
-				Station station = StationMapper.map(b050);
+				Station station = convert(b050, dictionary);
 				String networkCode = b050.getNetworkCode();
-				int networkIdentifierCode = b050.getNetworkIdentifierCode();
 				if (network == null || !networkCode.equals(network.getCode())) {
-					network = new Network();
-					network.setCode(networkCode);
-					B033 b03310 = (B033) volume.getDictionaryBlockette(33, networkIdentifierCode);
-					if (b03310 != null) {
-						network.setDescription(b03310.getDescription());
-					}
+					network = createNetwork(b050, dictionary);
 					document.getNetwork().add(network);
 				}
 
@@ -133,256 +134,269 @@ public class SeedToXmlDocumentConverter implements MetadataDocumentFormatConvert
 				}
 
 				network.addStation(station);
+			}
+		} catch (MetadataConverterException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MetadataConverterException(e);
+		}
+		return document;
+	}
 
-				if (b050.getB051s() != null && !b050.getB051s().isEmpty()) {
-					for (B051 b051 : b050.getB051s()) {
-						Comment stationComment = CommentMapper.buildForStation(b051);
-						B031 b031 = (B031) volume.getDictionaryBlockette(31, b051.getLookupKey());
-						stationComment.setValue(b031.getDescription());
-						station.add(stationComment);
-					}
+	/**
+	 * 
+	 * @return an empty document with source, module and creation time set
+	 * @throws MetadataConverterException
+	 */
+	public FDSNStationXML createDocument() throws MetadataConverterException {
+		FDSNStationXML document = new FDSNStationXML();
+		try {
+			document.setSource("IRIS-DMC");
+			document.setCreated(IrisUtil.now());
+			document.setSchemaVersion(BigDecimal.valueOf(1.0));
+			document.setModule("IRIS converter | version: ");
+			document.setModuleURI("https://seiscode.iris.washington.edu/projects/stationxml-converter/wiki");
+		} catch (Exception e) {
+			throw new MetadataConverterException(e);
+		}
+		return document;
+	}
+
+	/**
+	 * 
+	 * @param b050
+	 * @param dictionary used to look up the network description
+	 * @return a network with code and description only, no stations and no dates
+	 */
+	public Network createNetwork(B050 b050, DictionaryLookup dictionary) {
+		Network network = new Network();
+		network.setCode(b050.getNetworkCode());
+		B033 b03310 = (B033) dictionary.get(33, b050.getNetworkIdentifierCode());
+		if (b03310 != null) {
+			network.setDescription(b03310.getDescription());
+		}
+		return network;
+	}
+
+	/**
+	 * Map one station with its comments, channels and responses. Abbreviations
+	 * are resolved against the dictionary, which does not need to contain the
+	 * station itself. Build it once per volume and reuse it for its stations.
+	 * 
+	 * @param b050
+	 * @param dictionary
+	 * @return the mapped station, not attached to any network
+	 * @throws MetadataConverterException
+	 */
+	public Station convert(B050 b050, DictionaryLookup dictionary) throws MetadataConverterException {
+		try {
+			Station station = StationMapper.map(b050);
+
+			if (b050.getB051s() != null && !b050.getB051s().isEmpty()) {
+				for (B051 b051 : b050.getB051s()) {
+					Comment stationComment = CommentMapper.buildForStation(b051);
+					B031 b031 = (B031) dictionary.get(31, b051.getLookupKey());
+					stationComment.setValue(b031.getDescription());
+					station.add(stationComment);
 				}
-				for (B052 b052 : b050.getB052s()) {
+			}
+			for (B052 b052 : b050.getB052s()) {
 
-					Channel channel = ChannelBlocketteMapper.map(b052);
-					station.addChannel(channel);
-					B033 b03306 = (B033) volume.getDictionaryBlockette(33, b052.getInstrumentIdentifier());
+				Channel channel = ChannelBlocketteMapper.map(b052);
+				station.addChannel(channel);
+				B033 b03306 = (B033) dictionary.get(33, b052.getInstrumentIdentifier());
 
-					if (b03306 != null) {
-						Equipment equipment = new Equipment();
-						equipment.setDescription(b03306.getDescription());
-						channel.setSensor(equipment);
-					}
-					B034 b03408 = (B034) volume.getDictionaryBlockette(34, b052.getUnitsOfSignalResponse());
-					if (b03408 != null) {
-						Units units = new Units();
-						units.setName(b03408.getName());
-						units.setDescription(b03408.getDescription());
-					}
+				if (b03306 != null) {
+					Equipment equipment = new Equipment();
+					equipment.setDescription(b03306.getDescription());
+					channel.setSensor(equipment);
+				}
+				B034 b03408 = (B034) dictionary.get(34, b052.getUnitsOfSignalResponse());
+				if (b03408 != null) {
+					Units units = new Units();
+					units.setName(b03408.getName());
+					units.setDescription(b03408.getDescription());
+				}
 
-					B034 b03409 = (B034) volume.getDictionaryBlockette(34, b052.getUnitsOfCalibrationInput());
-					if (b03409 != null) {
-						channel.setCalibrationUnits(UnitsMapper.map(b03409));
-					}
+				channel.setCalibrationUnits(dictionary.getUnits(b052.getUnitsOfCalibrationInput()));
 
-					// Not needed for station xml
-					b052.getDataFormatIdentifier();
-					b052.getOptionalComment();
-
-					if (b052.getB059s() != null) {
-						for (B059 b059 : b052.getB059s()) {
-							Comment channelComment = CommentMapper.buildForChannel(b059);
-							B031 b031 = (B031) volume.getDictionaryBlockette(31, b059.getLookupKey());
-							if (b031 != null) {
-								channelComment.setValue(b031.getDescription());
-								channel.add(channelComment);
-							}
+				// Not needed for station xml
+				b052.getDataFormatIdentifier();
+				b052.getOptionalComment();
+
+				if (b052.getB059s() != null) {
+					for (B059 b059 : b052.getB059s()) {
+						Comment channelComment = CommentMapper.buildForChannel(b059);
+						B031 b031 = (B031) dictionary.get(31, b059.getLookupKey());
+						if (b031 != null) {
+							channelComment.setValue(b031.getDescription());
+							channel.add(channelComment);
 						}
 					}
+				}
 
-					if (b052.getResponseStages() != null) {
-						Response response = new Response();
-						channel.setResponse(response);
-						for (SeedResponseStage seedStage : b052.getResponseStages()) {
-
-							if (seedStage.getSequence() == 0) {
-								for (ResponseBlockette b : seedStage.getBlockettes()) {
-									final int type = b.getType();
-									switch (type) {
-									case 58:
-										B058 b058 = (B058) b;
-										Sensitivity sensitivity = new Sensitivity();
-
-										// sensitivity.setInputUnits(value);
-										// sensitivity.setOutputUnits(value);
-
-										sensitivity.setFrequency(b058.getFrequency());
-										// sensitivity.setFrequencyDBVariation();
-										// sensitivity.setFrequencyEnd(value);
-										// sensitivity.setFrequencyStart(value);
-										sensitivity.setValue(b058.getSensitivity());
-										response.setInstrumentSensitivity(sensitivity);
-										break;
-									case 62:
-										B062 b062 = (B062) b;
-										Polynomial polynomial = PolynomialMapper.map(b062);
-										B034 b03405 = (B034) volume.getDictionaryBlockette(34,
-												b062.getSignalInputUnit());
-										if (b03405 != null) {
-											polynomial.setInputUnits(UnitsMapper.map(b03405));
-										}
-										B034 b03406 = (B034) volume.getDictionaryBlockette(34,
-												b062.getSignalOutputUnit());
-										if (b03406 != null) {
-											polynomial.setOutputUnits(UnitsMapper.map(b03406));
-										}
-										response.setInstrumentPolynomial(polynomial);
-										break;
-									}
+				if (b052.getResponseStages() != null) {
+					Response response = new Response();
+					channel.setResponse(response);
+					for (SeedResponseStage seedStage : b052.getResponseStages()) {
+
+						if (seedStage.getSequence() == 0) {
+							for (ResponseBlockette b : seedStage.getBlockettes()) {
+								final int type = b.getType();
+								switch (type) {
+								case 58:
+									B058 b058 = (B058) b;
+									Sensitivity sensitivity = new Sensitivity();
+
+									// sensitivity.setInputUnits(value);
+									// sensitivity.setOutputUnits(value);
+
+									sensitivity.setFrequency(b058.getFrequency());
+									// sensitivity.setFrequencyDBVariation();
+									// sensitivity.setFrequencyEnd(value);
+									// sensitivity.setFrequencyStart(value);
+									sensitivity.setValue(b058.getSensitivity());
+									response.setInstrumentSensitivity(sensitivity);
+									break;
+								case 62:
+									B062 b062 = (B062) b;
+									Polynomial polynomial = PolynomialMapper.map(b062);
+									polynomial.setInputUnits(dictionary.getUnits(b062.getSignalInputUnit()));
+									polynomial.setOutputUnits(dictionary.getUnits(b062.getSignalOutputUnit()));
+									response.setInstrumentPolynomial(polynomial);
+									break;
 								}
-							} else {
-								ResponseStage stage = new ResponseStage();
-								stage.setNumber(BigInteger.valueOf(seedStage.getSequence()));
-								channel.getResponse().getStage().add(stage);
-								for (ResponseBlockette b : seedStage.getBlockettes()) {
-									final int type = b.getType();
-									switch (type) {
-									case 53:
-										B053 b053 = (B053) b;
-										PolesZeros polesZeros = PolesZerosMapper.map(b053);
-										B034 b03405 = (B034) volume.getDictionaryBlockette(34,
-												b053.getSignalInputUnit());
-										if (b03405 != null) {
-											polesZeros.setInputUnits(UnitsMapper.map(b03405));
-										}
-										B034 b03406 = (B034) volume.getDictionaryBlockette(34,
-												b053.getSignalOutputUnit());
-										if (b03406 != null) {
-											polesZeros.setOutputUnits(UnitsMapper.map(b03406));
-										}
-										stage.add(polesZeros);
-										break;
-									case 54:
-										B054 b054 = (B054) b;
-
-										Coefficients coefficients = CoefficientsMapper.map(b054);
-										b03405 = (B034) volume.getDictionaryBlockette(34, b054.getSignalInputUnit());
-										if (b03405 != null) {
-											coefficients.setInputUnits(UnitsMapper.map(b03405));
-										}
-										b03406 = (B034) volume.getDictionaryBlockette(34, b054.getSignalOutputUnit());
-										if (b03406 != null) {
-											coefficients.setOutputUnits(UnitsMapper.map(b03406));
-										}
-										stage.add(coefficients);
-										break;
-									case 55:
-										B055 b055 = (B055) b;
-
-										ResponseList responseList = ResponseListMapper.map(b055);
-										b03405 = (B034) volume.getDictionaryBlockette(34, b055.getSignalInputUnit());
-										if (b03405 != null) {
-											responseList.setInputUnits(UnitsMapper.map(b03405));
-										}
-										b03406 = (B034) volume.getDictionaryBlockette(34, b055.getSignalOutputUnit());
-										if (b03406 != null) {
-											responseList.setOutputUnits(UnitsMapper.map(b03406));
+							}
+						} else {
+							ResponseStage stage = new ResponseStage();
+							stage.setNumber(BigInteger.valueOf(seedStage.getSequence()));
+							channel.getResponse().getStage().add(stage);
+							for (ResponseBlockette b : seedStage.getBlockettes()) {
+								final int type = b.getType();
+								switch (type) {
+								case 53:
+									B053 b053 = (B053) b;
+									PolesZeros polesZeros = PolesZerosMapper.map(b053);
+									polesZeros.setInputUnits(dictionary.getUnits(b053.getSignalInputUnit()));
+									polesZeros.setOutputUnits(dictionary.getUnits(b053.getSignalOutputUnit()));
+									stage.add(polesZeros);
+									break;
+								case 54:
+									B054 b054 = (B054) b;
+
+									Coefficients coefficients = CoefficientsMapper.map(b054);
+									coefficients.setInputUnits(dictionary.getUnits(b054.getSignalInputUnit()));
+									coefficients.setOutputUnits(dictionary.getUnits(b054.getSignalOutputUnit()));
+									stage.add(coefficients);
+									break;
+								case 55:
+									B055 b055 = (B055) b;
+
+									ResponseList responseList = ResponseListMapper.map(b055);
+									responseList.setInputUnits(dictionary.getUnits(b055.getSignalInputUnit()));
+									responseList.setOutputUnits(dictionary.getUnits(b055.getSignalOutputUnit()));
+									stage.add(responseList);
+									break;
+								case 57:
+									B057 b057 = (B057) b;
+
+									Decimation decimation = DecimationMapper.map(b057);
+									stage.setDecimation(decimation);
+									break;
+								case 58:
+									B058 b058 = (B058) b;
+									StageGain gain = GainMapper.build(b058);
+									stage.setStageGain(gain);
+									break;
+								case 60:
+									B060 b060 = (B060) b;
+									List<edu.iris.dmc.seed.control.station.Stage> list = b060.getStages();
+									for (edu.iris.dmc.seed.control.station.Stage s : list) {
+										int sequence = s.getSequence();
+										if (sequence > channel.getResponse().getStage().size()) {
+											stage = new ResponseStage();
+											stage.setNumber(BigInteger.valueOf(sequence));
+											channel.addStage(stage);
+										} else {
+											stage = channel.getResponse().getStage().get(sequence - 1);
 										}
-										stage.add(responseList);
-										break;
-									case 57:
-										B057 b057 = (B057) b;
-
-										Decimation decimation = DecimationMapper.map(b057);
-										stage.setDecimation(decimation);
-										break;
-									case 58:
-										B058 b058 = (B058) b;
-										StageGain gain = GainMapper.build(b058);
-										stage.setStageGain(gain);
-										break;
-									case 60:
-										B060 b060 = (B060) b;
-										List<edu.iris.dmc.seed.control.station.Stage> list = b060.getStages();
-										for (edu.iris.dmc.seed.control.station.Stage s : list) {
-											int sequence = s.getSequence();
-											if (sequence > channel.getResponse().getStage().size()) {
-												stage = new ResponseStage();
-												stage.setNumber(BigInteger.valueOf(sequence));
-												channel.addStage(stage);
-											} else {
-												stage = channel.getResponse().getStage().get(sequence - 1);
-											}
-											for (Integer lookupKey : s.getResponses()) {
-												Blockette referenceBlockette = volume
-														.getResponseDictionaryBlockette(lookupKey);
-												switch (referenceBlockette.getType()) {
-
-												case 41:
-													stage.setFIR(FirMapper.map((B041) referenceBlockette));
-													break;
-												case 42:
-													stage.setPolynomial(
-															PolynomialMapper.map((B042) referenceBlockette));
-													break;
-												case 43:
-													stage.setPolesZeros(
-															PolesZerosMapper.map((B043) referenceBlockette));
-													break;
-												case 44:
-													stage.setCoefficients(
-															CoefficientsMapper.map((B044) referenceBlockette));
-													break;
-												case 45:
-													stage.setResponseList(
-															ResponseListMapper.map((B045) referenceBlockette));
-													break;
-												case 46:
-													// no generic response
-													break;
-												case 47:
-													stage.setDecimation(
-															DecimationMapper.map((B047) referenceBlockette));
-													break;
-												case 48:
-													stage.setStageGain(GainMapper.build((B048) referenceBlockette));
-													break;
-												case 49:
-													stage.setPolynomial(
-															PolynomialMapper.map((B042) referenceBlockette));
-													break;
-												default:
-													ResponseType filter = FilterBuilder.build(referenceBlockette);
-													stage.add(filter);
-													break;
-												}
+										for (Integer lookupKey : s.getResponses()) {
+											Blockette referenceBlockette = dictionary
+													.getResponse(lookupKey);
+											switch (referenceBlockette.getType()) {
+
+											case 41:
+												stage.setFIR(FirMapper.map((B041) referenceBlockette));
+												break;
+											case 42:
+												stage.setPolynomial(
+														PolynomialMapper.map((B042) referenceBlockette));
+												break;
+											case 43:
+												stage.setPolesZeros(
+														PolesZerosMapper.map((B043) referenceBlockette));
+												break;
+											case 44:
+												stage.setCoefficients(
+														CoefficientsMapper.map((B044) referenceBlockette));
+												break;
+											case 45:
+												stage.setResponseList(
+														ResponseListMapper.map((B045) referenceBlockette));
+												break;
+											case 46:
+												// no generic response
+												break;
+											case 47:
+												stage.setDecimation(
+														DecimationMapper.map((B047) referenceBlockette));
+												break;
+											case 48:
+												stage.setStageGain(GainMapper.build((B048) referenceBlockette));
+												break;
+											case 49:
+												stage.setPolynomial(
+														PolynomialMapper.map((B042) referenceBlockette));
+												break;
+											default:
+												ResponseType filter = FilterBuilder.build(referenceBlockette);
+												stage.add(filter);
+												break;
 											}
 										}
-										break;
-									case 61:
-										B061 b061 = (B061) b;
-										FIR fir = FirMapper.build(b061);
-										b03405 = (B034) volume.getDictionaryBlockette(34, b061.getSignalInputUnit());
-										if (b03405 != null) {
-											fir.setInputUnits(UnitsMapper.map(b03405));
-										}
-										b03406 = (B034) volume.getDictionaryBlockette(34, b061.getSignalOutputUnit());
-										if (b03406 != null) {
-											fir.setOutputUnits(UnitsMapper.map(b03406));
-										}
-										stage.add(fir);
-										break;
-									case 62:
-										B062 b062 = (B062) b;
-										Polynomial polynomial = PolynomialMapper.map(b062);
-										b03405 = (B034) volume.getDictionaryBlockette(34, b062.getSignalInputUnit());
-										if (b03405 != null) {
-											polynomial.setInputUnits(UnitsMapper.map(b03405));
-										}
-										b03406 = (B034) volume.getDictionaryBlockette(34, b062.getSignalOutputUnit());
-										if (b03406 != null) {
-											polynomial.setOutputUnits(UnitsMapper.map(b03406));
-										}
-										stage.add(polynomial);
-										break;
-									default:
-										throw new MetadataConverterException(
-												String.format("\"Unkown blockette type [%s]", type));
 									}
+									break;
+								case 61:
+									B061 b061 = (B061) b;
+									FIR fir = FirMapper.build(b061);
+									fir.setInputUnits(dictionary.getUnits(b061.getSignalInputUnit()));
+									fir.setOutputUnits(dictionary.getUnits(b061.getSignalOutputUnit()));
+									stage.add(fir);
+									break;
+								case 62:
+									B062 b062 = (B062) b;
+									Polynomial polynomial = PolynomialMapper.map(b062);
+									polynomial.setInputUnits(dictionary.getUnits(b062.getSignalInputUnit()));
+									polynomial.setOutputUnits(dictionary.getUnits(b062.getSignalOutputUnit()));
+									stage.add(polynomial);
+									break;
+								default:
+									throw new MetadataConverterException(
+											String.format("\"Unkown blockette type [%s]", type));
 								}
 							}
 						}
-						updateInstrumentSensitivityUnits(channel);
-						updateInstrumentPolynomial(channel);
 					}
+					updateInstrumentSensitivityUnits(channel);
+					updateInstrumentPolynomial(channel);
 				}
 			}
-		} catch (DatatypeConfigurationException e1) {
-			throw new MetadataConverterException(e1);
+			return station;
+		} catch (MetadataConverterException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new MetadataConverterException(e);
 		}
-		return document;
 	}
 
 	private void updateInstrumentSensitivityUnits(Channel channel) {
@@ -1,23 +1,29 @@
 package edu.iris.dmc.station.converter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 
 import edu.iris.dmc.IrisUtil;
 import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.seed.Blockette;
 import edu.iris.dmc.seed.SeedException;
 import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.blockette.util.BlocketteItrator;
+import edu.iris.dmc.seed.director.BlocketteDirector;
 import edu.iris.dmc.station.FileConverterException;
+import edu.iris.dmc.station.converter.ConversionMetrics.Phase;
 import edu.iris.dmc.station.mapper.MetadataConverterException;
+import edu.iris.dmc.station.util.SeedStationIterator;
+import edu.iris.dmc.station.util.StationXmlWriter;
 
 public class SeedToXmlFileConverter implements MetadataFileFormatConverter<File> {
 
@@ -39,48 +45,154 @@ public class SeedToXmlFileConverter implements MetadataFileFormatConverter<File>
 
 	public void convert(InputStream source, OutputStream outputStream, Map<String, String> args)
 			throws FileConverterException, IOException {
+		convert(source, outputStream, args, new ConversionMetrics());
+	}
+
+	public void convert(InputStream source, OutputStream outputStream, Map<String, String> args,
+			ConversionMetrics metrics) throws FileConverterException, IOException {
+		if (args != null) {
+			String large = args.get("large");
+			if (large != null && Boolean.valueOf(large)) {
+				this.convertLarge(source, outputStream, args, metrics);
+				return;
+			}
+		}
 		try {
-			Volume volume = IrisUtil.readSeed(source);
-			FDSNStationXML document = SeedToXmlDocumentConverter.getInstance().convert(volume);
-			if (args != null) {
-				String org = args.get("organization");
-				if (org != null) {
-					document.setSource(org);
-				}
-				String label = args.get("label");
-				if (label != null) {
-					document.setSource(org+" - "+label);
+			long start = System.nanoTime();
+			Volume volume = readSeed(source, metrics);
+			metrics.end(Phase.PARSE, start);
+
+			start = System.nanoTime();
+			DictionaryLookup dictionary = new DictionaryLookup(volume);
+			metrics.end(Phase.DICTIONARY, start);
+
+			start = System.nanoTime();
+			FDSNStationXML document = SeedToXmlDocumentConverter.getInstance().convert(volume, dictionary);
+			setSource(document, args);
+			metrics.addDictionary(dictionary.getHits(), dictionary.getMisses());
+			metrics.end(Phase.MAP, start);
+			for (Network network : document.getNetwork()) {
+				for (Station station : network.getStations()) {
+					metrics.countStation(station.getChannels().size());
 				}
 			}
+
+			start = System.nanoTime();
 			marshal(document, outputStream);
+			metrics.end(Phase.WRITE, start);
 		} catch (JAXBException | SeedException e) {
 			throw new IOException(e);
 		}
 	}
 
+	private Volume readSeed(InputStream inputStream, ConversionMetrics metrics) throws SeedException, IOException {
+		BlocketteItrator iterator = new BlocketteDirector().process(inputStream);
+		Volume volume = new Volume();
+		while (iterator.hasNext()) {
+			Blockette blockette = iterator.next();
+			metrics.countBlockette(blockette.getType());
+			volume.add(blockette);
+		}
+		return volume;
+	}
+
+	/**
+	 * Convert without materializing the volume: the abbreviation dictionary is
+	 * kept, stations are mapped and written one at a time. Networks are written
+	 * without start and end dates since those are only known once all of their
+	 * stations were read.
+	 * 
+	 * @param source
+	 * @param outputStream
+	 * @param args
+	 * @throws IOException
+	 */
+	public void convertLarge(InputStream source, OutputStream outputStream, Map<String, String> args)
+			throws IOException {
+		convertLarge(source, outputStream, args, new ConversionMetrics());
+	}
+
+	public void convertLarge(InputStream source, OutputStream outputStream, Map<String, String> args,
+			ConversionMetrics metrics) throws IOException {
+		FDSNStationXML document = SeedToXmlDocumentConverter.getInstance().createDocument();
+		setSource(document, args);
+
+		SeedStationIterator it = new SeedStationIterator(source, metrics);
+		long start = System.nanoTime();
+		StationXmlWriter writer = new StationXmlWriter(outputStream);
+		writer.writeStartDocument(document);
+		metrics.end(Phase.WRITE, start);
+		Network network = null;
+		while (it.hasNext()) {
+			Station station = it.next();
+			metrics.countStation(station.getChannels().size());
+			start = System.nanoTime();
+			if (station.getNetwork() != network) {
+				if (network != null) {
+					writer.writeEndNetwork();
+				}
+				network = station.getNetwork();
+				writer.writeStartNetwork(network);
+			}
+			writer.write(station);
+			metrics.end(Phase.WRITE, start);
+		}
+		start = System.nanoTime();
+		writer.writeEndDocument();
+		metrics.end(Phase.WRITE, start);
+	}
+
+	private void setSource(FDSNStationXML document, Map<String, String> args) {
+		if (args != null) {
+			String org = args.get("organization");
+			if (org != null) {
+				document.setSource(org);
+			}
+			String label = args.get("label");
+			if (label != null) {
+				document.setSource(org+" - "+label);
+			}
+		}
+	}
+
 	@Override
 	public void convert(File source, File target, Map<String, String> args)
 			throws MetadataConverterException, IOException {
-		try (FileInputStream fileInputStream = new FileInputStream(source);
-				OutputStream fileOutputStream = new FileOutputStream(target)) {
-			convert(fileInputStream, fileOutputStream, args);
+		convert(source, target, args, new ConversionMetrics());
+	}
+
+	@Override
+	public void convert(File source, File target, Map<String, String> args, ConversionMetrics metrics)
+			throws MetadataConverterException, IOException {
+		boolean compress = args != null && Boolean.valueOf(args.get("compress"));
+		try (InputStream fileInputStream = IrisUtil.newInputStream(source);
+				OutputStream fileOutputStream = IrisUtil.newOutputStream(target, compress)) {
+			convert(fileInputStream, fileOutputStream, args, metrics);
 		} catch (Exception e) {
 			throw new FileConverterException(e, source.getPath());
 		}
+		metrics.countFile();
+		metrics.addBytesRead(source.length());
+		metrics.addBytesWritten(target.length());
 	}
 
 	public void marshal(FDSNStationXML document, File file) throws IOException, JAXBException {
-		JAXBContext jaxbContext = JAXBContext.newInstance(edu.iris.dmc.fdsn.station.model.ObjectFactory.class);
-		Marshaller marshaller = jaxbContext.createMarshaller();
-		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		marshaller.marshal(document, file);
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(file))) {
+			marshal(document, stream);
+		}
 	}
 
+	/**
+	 * Write the document station by station, output starts before the whole
+	 * document is serialized and is identical to a formatted JAXB marshal.
+	 * 
+	 * @param document
+	 * @param stream
+	 * @throws IOException
+	 * @throws JAXBException
+	 */
 	public void marshal(FDSNStationXML document, OutputStream stream) throws IOException, JAXBException {
-		JAXBContext jaxbContext = JAXBContext.newInstance(edu.iris.dmc.fdsn.station.model.ObjectFactory.class);
-		Marshaller marshaller = jaxbContext.createMarshaller();
-		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		marshaller.marshal(document, stream);
+		new StationXmlWriter(stream).write(document);
 	}
 
 }
@@ -2,6 +2,8 @@ package edu.iris.dmc.station.converter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import edu.iris.dmc.fdsn.station.model.Channel;
 import edu.iris.dmc.fdsn.station.model.Comment;
@@ -12,6 +14,7 @@ import edu.iris.dmc.fdsn.station.model.Polynomial;
 import edu.iris.dmc.fdsn.station.model.ResponseStage;
 import edu.iris.dmc.fdsn.station.model.Station;
 import edu.iris.dmc.seed.BTime;
+import edu.iris.dmc.seed.Blockette;
 import edu.iris.dmc.seed.SeedException;
 import edu.iris.dmc.seed.Volume;
 import edu.iris.dmc.seed.control.dictionary.B030;
@@ -30,14 +33,11 @@ import edu.iris.dmc.seed.control.station.B059;
 import edu.iris.dmc.seed.control.station.B061;
 import edu.iris.dmc.seed.control.station.B062;
 import edu.iris.dmc.station.ChannelCommentToBlocketteMapper;
+import edu.iris.dmc.station.converter.ConversionMetrics.Phase;
 import edu.iris.dmc.station.mapper.ChannelBlocketteMapper;
-import edu.iris.dmc.station.mapper.CoefficientsMapper;
 import edu.iris.dmc.station.mapper.DecimationMapper;
-import edu.iris.dmc.station.mapper.FirToBlocketteMapper;
 import edu.iris.dmc.station.mapper.InstrumentSensitivityToBlocketteMapper;
 import edu.iris.dmc.station.mapper.MetadataConverterException;
-import edu.iris.dmc.station.mapper.PolesZerosMapper;
-import edu.iris.dmc.station.mapper.PolynomialMapper;
 import edu.iris.dmc.station.mapper.SensitivityToBlocketteMapper;
 import edu.iris.dmc.station.mapper.StageGainToBlocketteMapper;
 import edu.iris.dmc.station.mapper.StationBlocketteMapper;
@@ -49,17 +49,34 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 
 	private static XmlToSeedDocumentConverter INSTANCE = new XmlToSeedDocumentConverter();
 
-	public static MetadataDocumentFormatConverter<FDSNStationXML, Volume> getInstance() {
+	private final Logger logger = Logger.getLogger(XmlToSeedDocumentConverter.class.getName());
+
+	public static XmlToSeedDocumentConverter getInstance() {
 		return INSTANCE;
 	}
 
 	@Override
 	public Volume convert(FDSNStationXML document) throws MetadataConverterException, IOException {
+		return convert(document, new ConversionMetrics());
+	}
+
+	/**
+	 * 
+	 * @param document
+	 * @param metrics  gets the dictionary time, hits and misses and the response
+	 *                 stage cache hits and misses
+	 * @return the volume
+	 * @throws MetadataConverterException
+	 * @throws IOException
+	 */
+	public Volume convert(FDSNStationXML document, ConversionMetrics metrics)
+			throws MetadataConverterException, IOException {
 		if (document == null || document.getNetwork() == null || document.getNetwork().isEmpty()) {
 			throw new MetadataConverterException("Document is empty, expected networks but found none!");
 		}
 
 		Volume volume = new Volume();
+		ResponseStageCache responses = new ResponseStageCache();
 		try {
 			B010 b010 = new B010();
 			b010.setVolumeTime(BTime.now());
@@ -73,7 +90,7 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 				if (network.getDescription() != null) {
 					B033 b033 = new B033();
 					b033.setDescription(network.getDescription());
-					b033 = (B033) volume.add(b033);
+					b033 = add(volume, b033, metrics);
 					networkIdentifierCode = b033.getLookupKey();
 				}
 				for (Station station : network.getStations()) {
@@ -98,7 +115,7 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 							}
 							b031.setUnitsOfCommentLevel(0);// set to zero for now
 
-							b031 = (B031) volume.add(b031);
+							b031 = add(volume, b031, metrics);
 							b051.setLookupKey(b031.getLookupKey());
 							volume.add(b051);
 						}
@@ -114,7 +131,7 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 							B030 b03016 = new B030();
 							b03016.setName("Undefined data format");
 							b03016.setDataFamilyType(90);
-							b03016 = (B030) volume.add(b03016);
+							b03016 = add(volume, b03016, metrics);
 							b052.setDataFormatIdentifier(b03016.getLookupKey());
 
 							for (Comment comment : channel.getComment()) {
@@ -131,7 +148,7 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 								}								
 								b031.setUnitsOfCommentLevel(0);// set to zero for now
 
-								b031 = (B031) volume.add(b031);
+								b031 = add(volume, b031, metrics);
 								b059.setLookupKey(b031.getLookupKey());
 								volume.add(b059);
 							}
@@ -167,7 +184,7 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 								}
 								B033 b03306 = new B033();
 								b03306.setDescription(equipmentText.toString());
-								b03306 = (B033) volume.add(b03306);
+								b03306 = add(volume, b03306, metrics);
 								b052.setInstrumentIdentifier(b03306.getLookupKey());
 
 							}
@@ -187,13 +204,13 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 									// throw exception
 								}
 								if (b03408 != null) {
-									b03408 = (B034) volume.add(b03408);
+									b03408 = add(volume, b03408, metrics);
 									b052.setUnitsOfSignalResponse(b03408.getLookupKey());
 								}
 
 								if (channel.getCalibrationUnits() != null) {
 									B034 b03409 = UnitsMapper.map(channel.getCalibrationUnits());
-									b03409 = (B034) volume.add(b03409);
+									b03409 = add(volume, b03409, metrics);
 									b052.setUnitsOfCalibrationInput(b03409.getLookupKey());
 								}
 
@@ -201,30 +218,30 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 								if (stages != null) {
 									for (ResponseStage stage : stages) {
 										if (stage.getPolesZeros() != null) {
-											B053 b053 = PolesZerosMapper.map(stage.getPolesZeros());
+											B053 b053 = responses.map(stage.getPolesZeros());
 											if (stage.getPolesZeros().getInputUnits() != null) {
 												B034 b03405 = UnitsMapper.map(stage.getPolesZeros().getInputUnits());
-												b03405 = (B034) volume.add(b03405);
+												b03405 = add(volume, b03405, metrics);
 												b053.setSignalInputUnit(b03405.getLookupKey());
 											}
 											if (stage.getPolesZeros().getOutputUnits() != null) {
 												B034 b03406 = UnitsMapper.map(stage.getPolesZeros().getOutputUnits());
-												b03406 = (B034) volume.add(b03406);
+												b03406 = add(volume, b03406, metrics);
 												b053.setSignalOutputUnit(b03406.getLookupKey());
 											}
 											b053.setStageSequence(stage.getNumber().intValue());
 											volume.add(b053);
 										}
 										if (stage.getCoefficients() != null) {
-											B054 b054 = CoefficientsMapper.map(stage.getCoefficients());
+											B054 b054 = responses.map(stage.getCoefficients());
 											if (stage.getCoefficients().getInputUnits() != null) {
 												B034 b03405 = UnitsMapper.map(stage.getCoefficients().getInputUnits());
-												b03405 = (B034) volume.add(b03405);
+												b03405 = add(volume, b03405, metrics);
 												b054.setSignalInputUnit(b03405.getLookupKey());
 											}
 											if (stage.getCoefficients().getOutputUnits() != null) {
 												B034 b03406 = UnitsMapper.map(stage.getCoefficients().getOutputUnits());
-												b03406 = (B034) volume.add(b03406);
+												b03406 = add(volume, b03406, metrics);
 												b054.setSignalOutputUnit(b03406.getLookupKey());
 											}
 											b054.setStageSequence(stage.getNumber().intValue());
@@ -244,15 +261,15 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 											volume.add(b058);
 										}
 										if (stage.getFIR() != null) {
-											B061 b061 = FirToBlocketteMapper.map(stage.getFIR());
+											B061 b061 = responses.map(stage.getFIR());
 											if (stage.getFIR().getInputUnits() != null) {
 												B034 b03406 = UnitsMapper.map(stage.getFIR().getInputUnits());
-												b03406 = (B034) volume.add(b03406);
+												b03406 = add(volume, b03406, metrics);
 												b061.setSignalInputUnit(b03406.getLookupKey());
 											}
 											if (stage.getFIR().getOutputUnits() != null) {
 												B034 b03407 = UnitsMapper.map(stage.getFIR().getOutputUnits());
-												b03407 = (B034) volume.add(b03407);
+												b03407 = add(volume, b03407, metrics);
 												b061.setSignalOutputUnit(b03407.getLookupKey());
 											}
 
@@ -260,15 +277,15 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 											volume.add(b061);
 										}
 										if (stage.getPolynomial() != null) {
-											B062 b062 = PolynomialMapper.map(stage.getPolynomial());
+											B062 b062 = responses.map(stage.getPolynomial());
 											if (stage.getPolynomial().getInputUnits() != null) {
 												B034 b03406 = UnitsMapper.map(stage.getPolynomial().getInputUnits());
-												b03406 = (B034) volume.add(b03406);
+												b03406 = add(volume, b03406, metrics);
 												b062.setSignalInputUnit(b03406.getLookupKey());
 											}
 											if (stage.getPolynomial().getOutputUnits() != null) {
 												B034 b03407 = UnitsMapper.map(stage.getPolynomial().getOutputUnits());
-												b03407 = (B034) volume.add(b03407);
+												b03407 = add(volume, b03407, metrics);
 												b062.setSignalOutputUnit(b03407.getLookupKey());
 											}
 
@@ -293,15 +310,15 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 
 								Polynomial polynomial = channel.getResponse().getInstrumentPolynomial();
 								if (polynomial != null) {
-									B062 b062 = PolynomialMapper.map(polynomial);
+									B062 b062 = responses.map(polynomial);
 									if (polynomial.getInputUnits() != null) {
 										B034 b03406 = UnitsMapper.map(polynomial.getInputUnits());
-										b03406 = (B034) volume.add(b03406);
+										b03406 = add(volume, b03406, metrics);
 										b062.setSignalInputUnit(b03406.getLookupKey());
 									}
 									if (polynomial.getOutputUnits() != null) {
 										B034 b03407 = UnitsMapper.map(polynomial.getOutputUnits());
-										b03407 = (B034) volume.add(b03407);
+										b03407 = add(volume, b03407, metrics);
 										b062.setSignalOutputUnit(b03407.getLookupKey());
 									}
 
@@ -314,6 +331,8 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 				}
 			}
 			volume.build();
+			logger.log(Level.INFO, responses.toString());
+			metrics.addStageCache(responses.getHits(), responses.getMisses());
 		} catch (InvalidUnitException e) {
 			throw new MetadataConverterException(e);
 		} catch (SeedException e) {
@@ -322,4 +341,24 @@ public class XmlToSeedDocumentConverter implements MetadataDocumentFormatConvert
 		}
 		return volume;
 	}
+
+	/**
+	 * Add a dictionary blockette, timed as {@link Phase#DICTIONARY}.
+	 *
+	 * @return the blockette already in the volume if there is an equal one, a
+	 *         hit, else blockette itself, a miss
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Blockette> T add(Volume volume, T blockette, ConversionMetrics metrics)
+			throws SeedException {
+		long start = System.nanoTime();
+		T canonical = (T) volume.add(blockette);
+		if (canonical == blockette) {
+			metrics.dictionaryMiss();
+		} else {
+			metrics.dictionaryHit();
+		}
+		metrics.end(Phase.DICTIONARY, start);
+		return canonical;
+	}
 }
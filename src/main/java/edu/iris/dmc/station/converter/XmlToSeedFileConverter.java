@@ -1,14 +1,30 @@
 package edu.iris.dmc.station.converter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,22 +68,25 @@ import edu.iris.dmc.seed.io.RecordInputStream;
 import edu.iris.dmc.seed.io.SeedBufferedOutputStream;
 import edu.iris.dmc.seed.writer.SeedFileWriter;
 import edu.iris.dmc.station.ChannelCommentToBlocketteMapper;
+import edu.iris.dmc.station.converter.ConversionMetrics.Phase;
 import edu.iris.dmc.station.mapper.ChannelBlocketteMapper;
-import edu.iris.dmc.station.mapper.CoefficientsMapper;
 import edu.iris.dmc.station.mapper.DecimationMapper;
-import edu.iris.dmc.station.mapper.FirToBlocketteMapper;
 import edu.iris.dmc.station.mapper.MetadataConverterException;
-import edu.iris.dmc.station.mapper.PolesZerosMapper;
-import edu.iris.dmc.station.mapper.PolynomialMapper;
+import edu.iris.dmc.station.mapper.ResponseDictionaryMapper;
 import edu.iris.dmc.station.mapper.SensitivityToBlocketteMapper;
 import edu.iris.dmc.station.mapper.StageGainToBlocketteMapper;
 import edu.iris.dmc.station.mapper.StationBlocketteMapper;
 import edu.iris.dmc.station.mapper.StationCommentToBlocketteMapper;
 import edu.iris.dmc.station.mapper.UnitsMapper;
+import edu.iris.dmc.station.util.StationFilter;
 import edu.iris.dmc.station.util.StationIterator;
+import edu.iris.dmc.station.util.WriteBehindOutputStream;
+import edu.iris.dmc.station.util.XmlStationIndex;
 
 public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File> {
 	private final Logger logger = Logger.getLogger(XmlToSeedFileConverter.class.getName());
+	// a rough ratio, responses written out as text take several times their blockettes
+	private static final int XML_BYTES_PER_SEED_BYTE = 4;
 	private static XmlToSeedFileConverter INSTANCE = new XmlToSeedFileConverter();
 
 	public static MetadataFileFormatConverter<File> getInstance() {
@@ -75,7 +94,14 @@ public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File>
 	}
 
 	public void convertLarge(File source, File target, Map<String, String> args) throws IOException {
-		int recordSize = 4096;
+		convertLarge(source, target, args, new ConversionMetrics());
+	}
+
+	public void convertLarge(File source, File target, Map<String, String> args, ConversionMetrics metrics)
+			throws IOException {
+		// collected apart so map time can be told from the rest of the loop
+		ConversionMetrics local = new ConversionMetrics();
+		int recordSize = recordLength(source, args);
 		Map<String, Integer> map = new HashMap<>();
 		B010 b010 = new B010();
 		b010.setVolumeTime(BTime.now());
@@ -92,6 +118,7 @@ public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File>
 			}
 		}
 		b010.setVersion("02.4");
+		b010.setNthPower(RecordLength.toNthPower(recordSize));
 
 		DictionaryIndex dictionary = new DictionaryIndex();
 		logger.log(Level.FINER, "Writing temperoray station file...");
@@ -99,306 +126,616 @@ public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File>
 		File stationTempFile = File.createTempFile("station", "dataless.temp");
 		stationTempFile.deleteOnExit();
 
-		try (StationIterator it = IrisUtil.newStationIterator(source);
-				BlocketteOutputStream out = new BlocketteOutputStream(new FileOutputStream(stationTempFile),
-						recordSize)) {
-			while (it.hasNext()) {
-				Station station = it.next();
-				logger.log(Level.FINE, "processing: " + station.getCode() + "...");
-				B050 b050 = StationBlocketteMapper.map(station);
-
-				Network network = station.getNetwork();
-				b050.setNetworkCode(station.getNetwork().getCode().trim());
-				if (network.getDescription() != null) {
-					B033 b033 = new B033();
-					b033.setDescription(network.getDescription());
-					b033 = (B033) dictionary.put(b033);
-					b050.setNetworkIdentifierCode(b033.getLookupKey());
+		ResponseStageCache responses = new ResponseStageCache();
+		int threads = 1;
+		if (args != null && args.get("threads") != null) {
+			threads = Integer.parseInt(args.get("threads"));
+		}
+		boolean dictionaryResponses = args != null && Boolean.valueOf(args.get("dictionary"));
+
+		long loop = System.nanoTime();
+		try (StationIterator it = IrisUtil.newStationIterator(source, StationFilter.of(args),
+				args != null && Boolean.valueOf(args.get("index")));
+				// 1 MB of records go to disk while the next stations are mapped
+				WriteBehindOutputStream records = new WriteBehindOutputStream(
+						new FileOutputStream(stationTempFile), recordSize, 256);
+				BlocketteOutputStream out = new BlocketteOutputStream(records, recordSize)) {
+			BlocketteSink sink = new StationFileSink(out, dictionary, map, local);
+			if (threads > 1) {
+				writeParallel(it, responses, dictionaryResponses, sink, threads, local);
+			} else {
+				while (hasNext(it, local)) {
+					write(next(it, local), responses, dictionaryResponses, sink);
 				}
-				b050.setNumberOfComments(station.getComment() == null ? 0 : station.getComment().size());
-				int sequence = out.write(b050);
-				if (map.get(station.getCode().trim()) == null) {
-					map.put(station.getCode().trim(), sequence);
+			}
+		} catch (SeedException e) {
+			throw new MetadataConverterException(e);
+		}
+		// whatever the loop did besides reading, looking up and writing
+		long other = local.getNanos(Phase.PARSE) + local.getNanos(Phase.DICTIONARY) + local.getNanos(Phase.WRITE);
+		local.add(Phase.MAP, Math.max(0, System.nanoTime() - loop - other));
+		logger.log(Level.INFO, responses.toString());
+		local.addStageCache(responses.getHits(), responses.getMisses());
+
+		long start = System.nanoTime();
+
+		// We need to build b011 and find out the b050s actual sequences. The
+		// dictionary is small, it is serialized in memory.
+		int numberOfDictionaryRecords = 0;
+		ByteArrayOutputStream dictionaryBuffer = new ByteArrayOutputStream();
+		try (BlocketteOutputStream a = new BlocketteOutputStream(dictionaryBuffer, recordSize)) {
+			for (Blockette b : dictionary.getAll()) {
+				numberOfDictionaryRecords = a.write(b);
+				local.countBlockette(b.getType());
+			}
+		}
+
+		// calculate b011
+		int numberOfStations = map.size();
+		int volumeSize = b010.getLength() + 10 + (numberOfStations * 11);
+
+		// How many records the volum header would take and therefore what would the
+		// sequence be
+		int sequence = numberOfDictionaryRecords + (int) Math.ceil((double) volumeSize / recordSize);
+		B011 b011 = new B011();
+		map.forEach((k, v) -> b011.add(k, v + sequence));
+
+		ByteArrayOutputStream volumeBuffer = new ByteArrayOutputStream();
+		int startSequence;
+		try (BlocketteOutputStream a = new BlocketteOutputStream(volumeBuffer, recordSize)) {
+			a.write(b010);
+			startSequence = a.write(b011);
+		}
+		local.countBlockette(10);
+		local.countBlockette(11);
+		local.end(Phase.DICTIONARY, start);
+
+		logger.log(Level.INFO, "Writing the dataless file " + target.getAbsolutePath());
+		start = System.nanoTime();
+		try (WritableByteChannel theFile = openTarget(target, compress(args));
+				FileChannel stations = FileChannel.open(stationTempFile.toPath(), StandardOpenOption.READ)) {
+			writeFully(theFile, ByteBuffer.wrap(volumeBuffer.toByteArray()));
+
+			ByteBuffer dictionaryRecords = ByteBuffer.wrap(dictionaryBuffer.toByteArray());
+			startSequence = renumber(dictionaryRecords, recordSize, startSequence + 1);
+			writeFully(theFile, dictionaryRecords);
+
+			// renumber the station records on their way to the target, a chunk at a time
+			ByteBuffer buffer = ByteBuffer.allocate(recordSize * 256);
+			boolean end = false;
+			while (!end) {
+				while (buffer.hasRemaining() && !end) {
+					end = stations.read(buffer) < 0;
 				}
-				if (station.getComment() != null) {
-					for (Comment comment : station.getComment()) {
-						if (comment.getBeginEffectiveTime() == null) {
-							comment.setBeginEffectiveTime(station.getStartDate());
-						}
-						B051 b051 = StationCommentToBlocketteMapper.map(comment);
-						B031 b031 = new B031();
-						b031.setClassCode('S');
-						b031.setDescription(comment.getValue());
-						b031.setUnitsOfCommentLevel(0);// set to zero for now
-
-						b031 = (B031) dictionary.put(b031);
-						b051.setLookupKey(b031.getLookupKey());
-						out.write(b051);
-					}
+				// whole records, the file holds nothing else
+				buffer.flip();
+				startSequence = renumber(buffer, recordSize, startSequence);
+				writeFully(theFile, buffer);
+				buffer.clear();
+			}
+		} catch (SeedException e) {
+			throw new IOException(e);
+		}
+		if (stationTempFile != null) {
+			stationTempFile.delete();
+		}
+		local.end(Phase.WRITE, start);
+		metrics.add(local);
+	}
 
-					b050.setNumberOfChannels(station.getChannels().size());
-					for (Channel channel : station.getChannels()) {
-						B052 b052 = ChannelBlocketteMapper.map(channel);
-						// is this really needed?
-						b052.setSubChannelCode(0);
-
-						B030 b03016 = new B030();
-						b03016.setName("Undefined data format");
-						b03016.setDataFamilyType(100);
-						b03016 = (B030) dictionary.put(b03016);
-						b052.setDataFormatIdentifier(b03016.getLookupKey());
-						b052.setNumberOfComments(channel.getComment().size());
-
-						Equipment equipment = channel.getSensor();
-						if (equipment != null) {
-							StringBuilder equipmentText = new StringBuilder();
-							boolean addComma = false;
-
-							if (equipment.getModel() != null) {
-								if (addComma) {
-									equipmentText.append(",");
-								}
-								equipmentText.append(equipment.getModel());
-								addComma = true;
-							}
+	/**
+	 * The record length asked for, or for auto one chosen from the number and
+	 * size of the stations in the index of source when there is one or --index
+	 * asks for it, else estimated from the size of source. Source is not scanned
+	 * for it. Nothing is known of a compressed source before it is read, it gets
+	 * the default.
+	 */
+	private int recordLength(File source, Map<String, String> args) throws IOException {
+		int recordLength = RecordLength.parse(args == null ? null : args.get("record-length"));
+		if (recordLength != 0) {
+			return recordLength;
+		}
+		if (IrisUtil.isGzip(source)) {
+			logger.log(Level.INFO, "Compressed input, using a record length of " + RecordLength.DEFAULT);
+			return RecordLength.DEFAULT;
+		}
+		XmlStationIndex index = Boolean.valueOf(args.get("index")) ? XmlStationIndex.load(source)
+				: XmlStationIndex.current(source);
+		if (index == null) {
+			recordLength = RecordLength.estimate(source.length() / XML_BYTES_PER_SEED_BYTE);
+			logger.log(Level.INFO, "Using a record length of " + recordLength + " for " + source.length() + " bytes");
+			return recordLength;
+		}
+		long bytes = 0;
+		for (XmlStationIndex.StationEntry station : index.getStations()) {
+			bytes += station.getLength();
+		}
+		int stations = index.getStations().size();
+		recordLength = RecordLength.choose(stations, stations == 0 ? 0 : bytes / stations / XML_BYTES_PER_SEED_BYTE);
+		logger.log(Level.INFO, "Using a record length of " + recordLength + " for " + stations + " stations");
+		return recordLength;
+	}
 
-							if (equipment.getDescription() != null) {
-								if (addComma) {
-									equipmentText.append(",");
-								}
-								equipmentText.append(equipment.getDescription());
-							}
+	/**
+	 * Record length for a volume already in memory, auto is chosen from its
+	 * blockettes.
+	 */
+	private static int recordLength(Volume volume, Map<String, String> args) {
+		int recordLength = RecordLength.parse(args == null ? null : args.get("record-length"));
+		if (recordLength != 0) {
+			return recordLength;
+		}
+		long bytes = 0;
+		for (Blockette blockette : volume.getAll()) {
+			bytes += blockette.getLength();
+		}
+		int stations = volume.getB050s().size();
+		return RecordLength.choose(stations, stations == 0 ? 0 : bytes / stations);
+	}
 
-							if (equipment.getType() != null) {
-								if (addComma) {
-									equipmentText.append(",");
-								}
-								equipmentText.append(equipment.getType());
-							}
-							B033 b03306 = new B033();
-							b03306.setDescription(equipmentText.toString());
-							b03306 = (B033) dictionary.put(b03306);
-							b052.setInstrumentIdentifier(b03306.getLookupKey());
+	private static boolean hasNext(StationIterator it, ConversionMetrics metrics) {
+		long start = System.nanoTime();
+		boolean hasNext = it.hasNext();
+		metrics.end(Phase.PARSE, start);
+		return hasNext;
+	}
+
+	private static Station next(StationIterator it, ConversionMetrics metrics) {
+		long start = System.nanoTime();
+		Station station = it.next();
+		metrics.end(Phase.PARSE, start);
+		metrics.countStation(station.getChannels() == null ? 0 : station.getChannels().size());
+		return station;
+	}
+
+	/**
+	 * Overwrite the 6 byte sequence number of every record in buffer, starting
+	 * with sequence.
+	 * 
+	 * @return the sequence following the last record
+	 */
+	private static int renumber(ByteBuffer buffer, int recordSize, int sequence) throws SeedException {
+		for (int offset = 0; offset < buffer.limit(); offset += recordSize) {
+			byte[] sequenceBytes = SeedFormatter.format(sequence, 6).getBytes();
+			for (int i = 0; i < sequenceBytes.length; i++) {
+				buffer.put(offset + i, sequenceBytes[i]);
+			}
+			sequence++;
+		}
+		return sequence;
+	}
+
+	private static boolean compress(Map<String, String> args) {
+		return args != null && Boolean.valueOf(args.get("compress"));
+	}
+
+	/**
+	 * 
+	 * @return target as a channel, compressed or not
+	 */
+	private static WritableByteChannel openTarget(File target, boolean compress) throws IOException {
+		if (compress) {
+			return Channels.newChannel(IrisUtil.newOutputStream(target, true));
+		}
+		return FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+	}
+
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Map one station and everything below it to blockettes. Nothing here touches
+	 * the output or the dictionary directly, so it can run on any thread.
+	 */
+	private void write(Station station, ResponseStageCache responses, boolean dictionaryResponses, BlocketteSink sink)
+			throws SeedException, IOException {
+		logger.log(Level.FINE, "processing: " + station.getCode() + "...");
+		B050 b050 = StationBlocketteMapper.map(station);
+
+		Network network = station.getNetwork();
+		b050.setNetworkCode(station.getNetwork().getCode().trim());
+		if (network.getDescription() != null) {
+			B033 b033 = new B033();
+			b033.setDescription(network.getDescription());
+			sink.lookup(b033, b -> b050.setNetworkIdentifierCode(b.getLookupKey()));
+		}
+		b050.setNumberOfComments(station.getComment() == null ? 0 : station.getComment().size());
+		sink.writeStation(station.getCode().trim(), b050);
+		if (station.getComment() != null) {
+			for (Comment comment : station.getComment()) {
+				if (comment.getBeginEffectiveTime() == null) {
+					comment.setBeginEffectiveTime(station.getStartDate());
+				}
+				B051 b051 = StationCommentToBlocketteMapper.map(comment);
+				B031 b031 = new B031();
+				b031.setClassCode('S');
+				b031.setDescription(comment.getValue());
+				b031.setUnitsOfCommentLevel(0);// set to zero for now
+
+				sink.lookup(b031, b -> b051.setLookupKey(b.getLookupKey()));
+				sink.write(b051);
+			}
 
+			// b050 is already written, keep this in sequence with the writes
+			int numberOfChannels = station.getChannels().size();
+			sink.run(() -> b050.setNumberOfChannels(numberOfChannels));
+			for (Channel channel : station.getChannels()) {
+				B052 b052 = ChannelBlocketteMapper.map(channel);
+				// is this really needed?
+				b052.setSubChannelCode(0);
+
+				B030 b03016 = new B030();
+				b03016.setName("Undefined data format");
+				b03016.setDataFamilyType(100);
+				sink.lookup(b03016, b -> b052.setDataFormatIdentifier(b.getLookupKey()));
+				b052.setNumberOfComments(channel.getComment().size());
+
+				Equipment equipment = channel.getSensor();
+				if (equipment != null) {
+					StringBuilder equipmentText = new StringBuilder();
+					boolean addComma = false;
+
+					if (equipment.getModel() != null) {
+						if (addComma) {
+							equipmentText.append(",");
 						}
+						equipmentText.append(equipment.getModel());
+						addComma = true;
+					}
 
-						out.write(b052);
-						for (Comment comment : channel.getComment()) {
-							if (comment.getBeginEffectiveTime() == null) {
-								comment.setBeginEffectiveTime(channel.getStartDate());
-							}
-							B059 b059 = ChannelCommentToBlocketteMapper.map(comment);
-							B031 b031 = new B031();
-							b031.setClassCode('S');
-							b031.setDescription(comment.getValue());
-							b031.setUnitsOfCommentLevel(0);// set to zero for
-															// now
-
-							b031 = (B031) dictionary.put(b031);
-							b059.setLookupKey(b031.getLookupKey());
-							out.write(b059);
+					if (equipment.getDescription() != null) {
+						if (addComma) {
+							equipmentText.append(",");
 						}
+						equipmentText.append(equipment.getDescription());
+					}
 
-						if (channel.getResponse() != null) {
-							B034 b03408 = null;
-							if (channel.getResponse().getInstrumentSensitivity() != null
-									&& channel.getResponse().getInstrumentSensitivity().getInputUnits() != null) {
-								b03408 = UnitsMapper
-										.map(channel.getResponse().getInstrumentSensitivity().getInputUnits());
-							} else if (channel.getResponse().getInstrumentPolynomial() != null
-									&& channel.getResponse().getInstrumentPolynomial().getInputUnits() != null) {
-								b03408 = UnitsMapper
-										.map(channel.getResponse().getInstrumentPolynomial().getInputUnits());
-							} else {
-								// throw exception
-							}
-							if (b03408 != null) {
-								b03408 = (B034) dictionary.put(b03408);
-								b052.setUnitsOfSignalResponse(b03408.getLookupKey());
-							}
+					if (equipment.getType() != null) {
+						if (addComma) {
+							equipmentText.append(",");
+						}
+						equipmentText.append(equipment.getType());
+					}
+					B033 b03306 = new B033();
+					b03306.setDescription(equipmentText.toString());
+					sink.lookup(b03306, b -> b052.setInstrumentIdentifier(b.getLookupKey()));
 
-							if (channel.getCalibrationUnits() != null) {
-								B034 b03409 = UnitsMapper.map(channel.getCalibrationUnits());
-								b03409 = (B034) dictionary.put(b03409);
-								b052.setUnitsOfCalibrationInput(b03409.getLookupKey());
-							}
+				}
 
-							List<ResponseStage> stages = channel.getResponse().getStage();
-							if (stages != null) {
-								for (ResponseStage stage : stages) {
-									if (stage.getPolesZeros() != null) {
-										B053 b053 = PolesZerosMapper.map(stage.getPolesZeros());
-										if (stage.getPolesZeros().getInputUnits() != null) {
-											B034 b03405 = UnitsMapper.map(stage.getPolesZeros().getInputUnits());
-											b03405 = (B034) dictionary.put(b03405);
-											b053.setSignalInputUnit(b03405.getLookupKey());
-										}
-										if (stage.getPolesZeros().getOutputUnits() != null) {
-											B034 b03406 = UnitsMapper.map(stage.getPolesZeros().getOutputUnits());
-											b03406 = (B034) dictionary.put(b03406);
-											b053.setSignalOutputUnit(b03406.getLookupKey());
-										}
-										b053.setStageSequence(stage.getNumber().intValue());
-										out.write(b053);
-									}
-									if (stage.getCoefficients() != null) {
-										B054 b054 = CoefficientsMapper.map(stage.getCoefficients());
-										if (stage.getCoefficients().getInputUnits() != null) {
-											B034 b03405 = UnitsMapper.map(stage.getCoefficients().getInputUnits());
-											b03405 = (B034) dictionary.put(b03405);
-											b054.setSignalInputUnit(b03405.getLookupKey());
-										}
-										if (stage.getCoefficients().getOutputUnits() != null) {
-											B034 b03406 = UnitsMapper.map(stage.getCoefficients().getOutputUnits());
-											b03406 = (B034) dictionary.put(b03406);
-											b054.setSignalOutputUnit(b03406.getLookupKey());
-										}
-										b054.setStageSequence(stage.getNumber().intValue());
-										List<Blockette> blockettes = b054.split();
-										for (Blockette oBlockette : blockettes) {
-											out.write(oBlockette);
-										}
-									}
-									if (stage.getResponseList() != null) {
-
-									}
-									if (stage.getDecimation() != null) {
-										B057 b057 = DecimationMapper.map(stage.getDecimation());
-										b057.setStageSequence(stage.getNumber().intValue());
-										out.write(b057);
-									}
-									if (stage.getStageGain() != null) {
-										B058 b058 = StageGainToBlocketteMapper.map(stage.getStageGain());
-										b058.setStageSequence(stage.getNumber().intValue());
-										out.write(b058);
-									}
-									if (stage.getFIR() != null) {
-										B061 b061 = FirToBlocketteMapper.map(stage.getFIR());
-										if (stage.getFIR().getInputUnits() != null) {
-											B034 b03406 = UnitsMapper.map(stage.getFIR().getInputUnits());
-											b03406 = (B034) dictionary.put(b03406);
-											b061.setSignalInputUnit(b03406.getLookupKey());
-										}
-										if (stage.getFIR().getOutputUnits() != null) {
-											B034 b03407 = UnitsMapper.map(stage.getFIR().getOutputUnits());
-											b03407 = (B034) dictionary.put(b03407);
-											b061.setSignalOutputUnit(b03407.getLookupKey());
-										}
-
-										b061.setStageSequence(stage.getNumber().intValue());
-										int s = out.write(b061);
-									}
-									if (stage.getPolynomial() != null) {
-										B062 b062 = PolynomialMapper.map(stage.getPolynomial());
-										if (stage.getPolynomial().getInputUnits() != null) {
-											B034 b03406 = UnitsMapper.map(stage.getPolynomial().getInputUnits());
-											b03406 = (B034) dictionary.put(b03406);
-											b062.setSignalInputUnit(b03406.getLookupKey());
-										}
-										if (stage.getPolynomial().getOutputUnits() != null) {
-											B034 b03407 = UnitsMapper.map(stage.getPolynomial().getOutputUnits());
-											b03407 = (B034) dictionary.put(b03407);
-											b062.setSignalOutputUnit(b03407.getLookupKey());
-										}
-
-										b062.setStageSequence(stage.getNumber().intValue());
-										out.write(b062);
-									}
+				sink.write(b052);
+				for (Comment comment : channel.getComment()) {
+					if (comment.getBeginEffectiveTime() == null) {
+						comment.setBeginEffectiveTime(channel.getStartDate());
+					}
+					B059 b059 = ChannelCommentToBlocketteMapper.map(comment);
+					B031 b031 = new B031();
+					b031.setClassCode('S');
+					b031.setDescription(comment.getValue());
+					b031.setUnitsOfCommentLevel(0);// set to zero for
+													// now
+
+					sink.lookup(b031, b -> b059.setLookupKey(b.getLookupKey()));
+					sink.write(b059);
+				}
+
+				if (channel.getResponse() != null) {
+					B034 b03408 = null;
+					if (channel.getResponse().getInstrumentSensitivity() != null
+							&& channel.getResponse().getInstrumentSensitivity().getInputUnits() != null) {
+						b03408 = UnitsMapper
+								.map(channel.getResponse().getInstrumentSensitivity().getInputUnits());
+					} else if (channel.getResponse().getInstrumentPolynomial() != null
+							&& channel.getResponse().getInstrumentPolynomial().getInputUnits() != null) {
+						b03408 = UnitsMapper
+								.map(channel.getResponse().getInstrumentPolynomial().getInputUnits());
+					} else {
+						// throw exception
+					}
+					if (b03408 != null) {
+						sink.lookup(b03408, b -> b052.setUnitsOfSignalResponse(b.getLookupKey()));
+					}
+
+					if (channel.getCalibrationUnits() != null) {
+						B034 b03409 = UnitsMapper.map(channel.getCalibrationUnits());
+						sink.lookup(b03409, b -> b052.setUnitsOfCalibrationInput(b.getLookupKey()));
+					}
+
+					List<ResponseStage> stages = channel.getResponse().getStage();
+					if (stages != null) {
+						ChannelStages channelStages = new ChannelStages();
+						for (ResponseStage stage : stages) {
+							if (stage.getPolesZeros() != null) {
+								B053 b053 = responses.map(stage.getPolesZeros());
+								if (stage.getPolesZeros().getInputUnits() != null) {
+									B034 b03405 = UnitsMapper.map(stage.getPolesZeros().getInputUnits());
+									sink.lookup(b03405, b -> b053.setSignalInputUnit(b.getLookupKey()));
+								}
+								if (stage.getPolesZeros().getOutputUnits() != null) {
+									B034 b03406 = UnitsMapper.map(stage.getPolesZeros().getOutputUnits());
+									sink.lookup(b03406, b -> b053.setSignalOutputUnit(b.getLookupKey()));
+								}
+								b053.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b053, stage.getPolesZeros().getName());
+							}
+							if (stage.getCoefficients() != null) {
+								B054 b054 = responses.map(stage.getCoefficients());
+								if (stage.getCoefficients().getInputUnits() != null) {
+									B034 b03405 = UnitsMapper.map(stage.getCoefficients().getInputUnits());
+									sink.lookup(b03405, b -> b054.setSignalInputUnit(b.getLookupKey()));
+								}
+								if (stage.getCoefficients().getOutputUnits() != null) {
+									B034 b03406 = UnitsMapper.map(stage.getCoefficients().getOutputUnits());
+									sink.lookup(b03406, b -> b054.setSignalOutputUnit(b.getLookupKey()));
 								}
-								/*
-								 * if (channel.getResponse().getInstrumentSensitivity() != null) { B058 b058 =
-								 * InstrumentSensitivityToBlocketteMapper
-								 * .map(channel.getResponse().getInstrumentSensitivity());
-								 * b058.setStageSequence(0); out.write(b058); }
-								 */
+								b054.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b054, stage.getCoefficients().getName());
 							}
-							// stage zero
+							if (stage.getResponseList() != null) {
 
-							if (channel.getResponse().getInstrumentSensitivity() != null) {
-								B058 b058 = SensitivityToBlocketteMapper
-										.map(channel.getResponse().getInstrumentSensitivity());
-								b058.setStageSequence(0);
-								out.write(b058);
 							}
+							if (stage.getDecimation() != null) {
+								B057 b057 = DecimationMapper.map(stage.getDecimation());
+								b057.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b057, null);
+							}
+							if (stage.getStageGain() != null) {
+								B058 b058 = StageGainToBlocketteMapper.map(stage.getStageGain());
+								b058.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b058, null);
+							}
+							if (stage.getFIR() != null) {
+								B061 b061 = responses.map(stage.getFIR());
+								if (stage.getFIR().getInputUnits() != null) {
+									B034 b03406 = UnitsMapper.map(stage.getFIR().getInputUnits());
+									sink.lookup(b03406, b -> b061.setSignalInputUnit(b.getLookupKey()));
+								}
+								if (stage.getFIR().getOutputUnits() != null) {
+									B034 b03407 = UnitsMapper.map(stage.getFIR().getOutputUnits());
+									sink.lookup(b03407, b -> b061.setSignalOutputUnit(b.getLookupKey()));
+								}
 
-							Polynomial polynomial = channel.getResponse().getInstrumentPolynomial();
-							if (polynomial != null) {
-								B062 b062 = PolynomialMapper.map(polynomial);
-								if (polynomial.getInputUnits() != null) {
-									B034 b03406 = UnitsMapper.map(polynomial.getInputUnits());
-									b03406 = (B034) dictionary.put(b03406);
-									b062.setSignalInputUnit(b03406.getLookupKey());
+								b061.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b061, stage.getFIR().getName());
+							}
+							if (stage.getPolynomial() != null) {
+								B062 b062 = responses.map(stage.getPolynomial());
+								if (stage.getPolynomial().getInputUnits() != null) {
+									B034 b03406 = UnitsMapper.map(stage.getPolynomial().getInputUnits());
+									sink.lookup(b03406, b -> b062.setSignalInputUnit(b.getLookupKey()));
 								}
-								if (polynomial.getOutputUnits() != null) {
-									B034 b03407 = UnitsMapper.map(polynomial.getOutputUnits());
-									b03407 = (B034) dictionary.put(b03407);
-									b062.setSignalOutputUnit(b03407.getLookupKey());
+								if (stage.getPolynomial().getOutputUnits() != null) {
+									B034 b03407 = UnitsMapper.map(stage.getPolynomial().getOutputUnits());
+									sink.lookup(b03407, b -> b062.setSignalOutputUnit(b.getLookupKey()));
 								}
 
-								b062.setStageSequence(0);
-								out.write(b062);
+								b062.setStageSequence(stage.getNumber().intValue());
+								channelStages.add(stage.getNumber().intValue(), b062, stage.getPolynomial().getName());
 							}
 						}
+						channelStages.write(sink, dictionaryResponses);
+						/*
+						 * if (channel.getResponse().getInstrumentSensitivity() != null) { B058 b058 =
+						 * InstrumentSensitivityToBlocketteMapper
+						 * .map(channel.getResponse().getInstrumentSensitivity());
+						 * b058.setStageSequence(0); sink.write(b058); }
+						 */
+					}
+					// stage zero
+
+					if (channel.getResponse().getInstrumentSensitivity() != null) {
+						B058 b058 = SensitivityToBlocketteMapper
+								.map(channel.getResponse().getInstrumentSensitivity());
+						b058.setStageSequence(0);
+						sink.write(b058);
+					}
+
+					Polynomial polynomial = channel.getResponse().getInstrumentPolynomial();
+					if (polynomial != null) {
+						B062 b062 = responses.map(polynomial);
+						if (polynomial.getInputUnits() != null) {
+							B034 b03406 = UnitsMapper.map(polynomial.getInputUnits());
+							sink.lookup(b03406, b -> b062.setSignalInputUnit(b.getLookupKey()));
+						}
+						if (polynomial.getOutputUnits() != null) {
+							B034 b03407 = UnitsMapper.map(polynomial.getOutputUnits());
+							sink.lookup(b03407, b -> b062.setSignalOutputUnit(b.getLookupKey()));
+						}
+
+						b062.setStageSequence(0);
+						sink.write(b062);
 					}
 				}
 			}
-		} catch (SeedException e) {
-			throw new MetadataConverterException(e);
 		}
+	}
 
-		// We need to build b011 and find out the b050s actual sequences
-		int numberOfDictionaryRecords = 0;
-		File dictionaryTempFile = File.createTempFile("dictionary", "dataless.temp");
-		dictionaryTempFile.deleteOnExit();
-		logger.log(Level.FINE, "Writing temperoray dictionary file [" + dictionaryTempFile.getAbsolutePath() + "]");
-		try (BlocketteOutputStream a = new BlocketteOutputStream(new FileOutputStream(dictionaryTempFile))) {
-			for (Blockette b : dictionary.getAll()) {
-				numberOfDictionaryRecords = a.write(b);
+	/**
+	 * Map stations on a pool of threads while this thread keeps reading and
+	 * writes the results back in the order the stations were read. Lookup keys
+	 * are only assigned while replaying, so the output is the same as when
+	 * mapping on a single thread.
+	 */
+	private void writeParallel(StationIterator it, ResponseStageCache responses, boolean dictionaryResponses,
+			BlocketteSink sink, int threads, ConversionMetrics metrics) throws SeedException, IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Deque<Future<BlocketteSink.Recorder>> pending = new ArrayDeque<>();
+			while (hasNext(it, metrics)) {
+				Station station = next(it, metrics);
+				pending.add(executor.submit(() -> {
+					BlocketteSink.Recorder recorder = new BlocketteSink.Recorder();
+					write(station, responses, dictionaryResponses, recorder);
+					return recorder;
+				}));
+				// bound the number of mapped stations waiting to be written
+				if (pending.size() >= threads * 4) {
+					replay(pending.poll(), sink);
+				}
 			}
+			while (!pending.isEmpty()) {
+				replay(pending.poll(), sink);
+			}
+		} finally {
+			executor.shutdownNow();
 		}
+	}
 
-		logger.log(Level.INFO, "Writing the dataless file " + target.getAbsolutePath());
-		try (BlocketteOutputStream theFile = new BlocketteOutputStream(new FileOutputStream(target))) {
-			// calculate b011
-			int numberOfStations = map.size();
-			int volumeSize = b010.getLength() + 10 + (numberOfStations * 11);
-
-			// How many records the volum header would take and therefore what would the
-			// sequence be
-			int sequence = numberOfDictionaryRecords + (int) Math.ceil((double) volumeSize / recordSize);
-			B011 b011 = new B011();
-			map.forEach((k, v) -> b011.add(k, v + sequence));
-			// write volume
-
-			theFile.write(b010);
-			int startSequence = theFile.write(b011);
-			// copy dictionary
-			try (InputStream is = new FileInputStream(dictionaryTempFile)) {
-				byte[] bytes = new byte[recordSize];
-
-				startSequence++;
-				while (is.read(bytes) > 0) {
-					byte[] sequenceBytes = SeedFormatter.format(startSequence, 6).getBytes();
-					System.arraycopy(sequenceBytes, 0, bytes, 0, 6);
-					theFile.writeRaw(bytes);
-					startSequence++;
+	private void replay(Future<BlocketteSink.Recorder> future, BlocketteSink sink) throws SeedException, IOException {
+		try {
+			future.get().replay(sink);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SeedException) {
+				throw (SeedException) cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new MetadataConverterException(cause);
+		}
+	}
+
+	/**
+	 * The response blockettes of one channel, written as they are or, when every
+	 * one of them has a response dictionary counterpart, as dictionary blockettes
+	 * referenced by a single B060. Identical responses are then written once per
+	 * volume instead of once per channel.
+	 */
+	private static class ChannelStages {
+
+		private final List<Integer> sequences = new ArrayList<>();
+		private final List<Blockette> blockettes = new ArrayList<>();
+		private final List<String> names = new ArrayList<>();
+
+		void add(int sequence, Blockette blockette, String name) {
+			sequences.add(sequence);
+			blockettes.add(blockette);
+			names.add(name);
+		}
+
+		void write(BlocketteSink sink, boolean dictionaryResponses) throws SeedException, IOException {
+			if (dictionaryResponses && !blockettes.isEmpty() && isMappable()) {
+				SortedMap<Integer, List<Integer>> stages = new TreeMap<>();
+				for (int i = 0; i < blockettes.size(); i++) {
+					Blockette blockette = blockettes.get(i);
+					String name = names.get(i);
+					List<Integer> keys = stages.computeIfAbsent(sequences.get(i), k -> new ArrayList<>());
+					// built once the units are resolved, they are part of the response
+					sink.lookupLater(() -> ResponseDictionaryMapper.map(blockette, name),
+							b -> keys.add(ResponseDictionaryMapper.getLookupKey(b)));
+				}
+				sink.writeLater(() -> ResponseDictionaryMapper.map(stages));
+				return;
+			}
+			for (Blockette blockette : blockettes) {
+				if (blockette instanceof B054) {
+					B054 b054 = (B054) blockette;
+					// the split copies carry the units, split only once they are resolved
+					int parts = b054.split().size();
+					if (parts == 1) {
+						sink.write(b054);
+					} else {
+						// split again by the first part, the others reuse it
+						List<Blockette> resolved = new ArrayList<>(parts);
+						for (int i = 0; i < parts; i++) {
+							int part = i;
+							sink.writeLater(() -> {
+								if (resolved.isEmpty()) {
+									resolved.addAll(b054.split());
+								}
+								return resolved.get(part);
+							});
+						}
+					}
+				} else {
+					sink.write(blockette);
 				}
 			}
-			// copy station
-			try (InputStream is = new FileInputStream(stationTempFile)) {
-				byte[] bytes = new byte[recordSize];
-				while (is.read(bytes) > 0) {
-					byte[] sequenceBytes = SeedFormatter.format(startSequence, 6).getBytes();
-					System.arraycopy(sequenceBytes, 0, bytes, 0, 6);
-					theFile.writeRaw(bytes);
-					startSequence++;
+		}
+
+		private boolean isMappable() throws SeedException {
+			for (int i = 0; i < blockettes.size(); i++) {
+				if (!ResponseDictionaryMapper.isMappable(blockettes.get(i), names.get(i))) {
+					return false;
 				}
 			}
-		} catch (SeedException e) {
-			throw new IOException(e);
+			return true;
 		}
-		if (stationTempFile != null) {
-			stationTempFile.delete();
+	}
+
+	/**
+	 * Writes station blockettes to the station file and adds dictionary
+	 * blockettes to the index as they come.
+	 */
+	private static class StationFileSink implements BlocketteSink {
+
+		private final BlocketteOutputStream out;
+		private final DictionaryIndex dictionary;
+		private final Map<String, Integer> sequences;
+		private final ConversionMetrics metrics;
+
+		StationFileSink(BlocketteOutputStream out, DictionaryIndex dictionary, Map<String, Integer> sequences,
+				ConversionMetrics metrics) {
+			this.out = out;
+			this.dictionary = dictionary;
+			this.sequences = sequences;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void writeStation(String code, B050 b050) throws IOException {
+			long start = System.nanoTime();
+			int sequence = out.write(b050);
+			if (sequences.get(code) == null) {
+				sequences.put(code, sequence);
+			}
+			metrics.end(Phase.WRITE, start);
+			metrics.countBlockette(50);
+		}
+
+		@Override
+		public void write(Blockette blockette) throws IOException {
+			long start = System.nanoTime();
+			out.write(blockette);
+			metrics.end(Phase.WRITE, start);
+			metrics.countBlockette(blockette.getType());
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends Blockette> void lookup(T blockette, Consumer<T> action) {
+			long start = System.nanoTime();
+			T canonical = (T) dictionary.put(blockette);
+			if (canonical == blockette) {
+				metrics.dictionaryMiss();
+			} else {
+				metrics.dictionaryHit();
+			}
+			metrics.end(Phase.DICTIONARY, start);
+			action.accept(canonical);
+		}
+
+		@Override
+		public <T extends Blockette> void lookupLater(Later<T> blockette, Consumer<T> action) throws SeedException {
+			lookup(blockette.get(), action);
+		}
+
+		@Override
+		public void writeLater(Later<? extends Blockette> blockette) throws SeedException, IOException {
+			write(blockette.get());
+		}
+
+		@Override
+		public void run(Runnable action) {
+			action.run();
 		}
 	}
 
@@ -409,22 +746,49 @@ public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File>
 
 	@Override
 	public void convert(File source, File target, Map<String, String> args) throws IOException {
+		convert(source, target, args, new ConversionMetrics());
+	}
+
+	@Override
+	public void convert(File source, File target, Map<String, String> args, ConversionMetrics metrics)
+			throws IOException {
 		if (args != null) {
+			// dictionary responses and filters are only supported one station at a time
 			String large = args.get("large");
-			if (large != null && Boolean.valueOf(large)) {
-				this.convertLarge(source, target, args);
+			if (Boolean.valueOf(large) || Boolean.valueOf(args.get("dictionary")) || StationFilter.of(args) != null) {
+				this.convertLarge(source, target, args, metrics);
+				metrics.countFile();
+				metrics.addBytesRead(source.length());
+				metrics.addBytesWritten(target.length());
 				return;
 			}
 		}
 		FDSNStationXML document = null;
 		Volume volume = null;
 		try {
+			long start = System.nanoTime();
 			document = IrisUtil.readXml(source);
-			volume = XmlToSeedDocumentConverter.getInstance().convert(document);
+			metrics.end(Phase.PARSE, start);
+
+			// dictionary time is collected apart so it can be taken out of map time
+			ConversionMetrics local = new ConversionMetrics();
+			start = System.nanoTime();
+			volume = XmlToSeedDocumentConverter.getInstance().convert(document, local);
+			local.add(Phase.MAP, System.nanoTime() - start - local.getNanos(Phase.DICTIONARY));
+			metrics.add(local);
 		} catch (JAXBException e) {
 			throw new IOException(e);
 		}
+		for (Network network : document.getNetwork()) {
+			for (Station station : network.getStations()) {
+				metrics.countStation(station.getChannels() == null ? 0 : station.getChannels().size());
+			}
+		}
+		for (Blockette blockette : volume.getAll()) {
+			metrics.countBlockette(blockette.getType());
+		}
 
+		long start = System.nanoTime();
 		B010 b010 = volume.getB010();
 		if (args != null) {
 			String org = args.get("organization");
@@ -436,11 +800,24 @@ public class XmlToSeedFileConverter implements MetadataFileFormatConverter<File>
 				b010.setLabel(label);
 			}
 		}
+		if (args != null && args.get("record-length") != null) {
+			b010.setNthPower(RecordLength.toNthPower(recordLength(volume, args)));
+		}
 		int logicalrecordLength = (int) Math.pow(2, b010.getNthPower());
-		try (SeedFileWriter writer = new SeedFileWriter(target, logicalrecordLength)) {
-			writer.write(volume);
+		if (compress(args)) {
+			try (SeedBufferedOutputStream stream = new SeedBufferedOutputStream(IrisUtil.newOutputStream(target, true),
+					logicalrecordLength)) {
+				stream.write(volume);
+			}
+		} else {
+			try (SeedFileWriter writer = new SeedFileWriter(target, logicalrecordLength)) {
+				writer.write(volume);
+			}
 		}
-
+		metrics.end(Phase.WRITE, start);
+		metrics.countFile();
+		metrics.addBytesRead(source.length());
+		metrics.addBytesWritten(target.length());
 	}
 
 	public void convert(InputStream inputStream, OutputStream outputStream, Map<String, String> args)
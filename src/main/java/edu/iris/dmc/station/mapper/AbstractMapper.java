@@ -1,7 +1,20 @@
 package edu.iris.dmc.station.mapper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.iris.dmc.fdsn.station.model.ObjectFactory;
 
 public abstract class AbstractMapper {
 	static ObjectFactory factory = new ObjectFactory();
+
+	/**
+	 * Grow the backing array of a model list once instead of as elements are
+	 * added, FIR filters run to hundreds of coefficients.
+	 */
+	static void ensureCapacity(List<?> list, int capacity) {
+		if (list instanceof ArrayList) {
+			((ArrayList<?>) list).ensureCapacity(capacity);
+		}
+	}
 }
@@ -1,5 +1,7 @@
 package edu.iris.dmc.station.mapper;
 
+import java.util.List;
+
 import edu.iris.dmc.fdsn.station.model.Coefficients;
 import edu.iris.dmc.fdsn.station.model.Coefficients.Denominator;
 import edu.iris.dmc.fdsn.station.model.Coefficients.Numerator;
@@ -13,43 +15,18 @@ public class CoefficientsMapper extends AbstractMapper {
 	private static ObjectFactory objectFactory = new ObjectFactory();
 
 	public static Coefficients map(B044 b) {
-
-		Coefficients coefficients = objectFactory.createCoefficientsType();
-
-		char responseType = b.getResponseType();
-		String transferFunction = "";
-		if ('A' == responseType) {
-			transferFunction = "ANALOG (RADIANS/SECOND)";
-		} else if ('B' == responseType) {
-			transferFunction = "ANALOG (HERTZ)";
-		} else if ('D' == responseType) {
-			transferFunction = "DIGITAL";
-		}
-
-		coefficients.setCfTransferFunctionType(transferFunction);
-		for (edu.iris.dmc.seed.control.station.Number n : b.getNumerators()) {
-			Numerator ft = objectFactory.createCoefficientsTypeNumerator();
-			ft.setValue(n.getValue());
-			ft.setMinusError(n.getError());
-			ft.setPlusError(n.getError());
-			coefficients.getNumerator().add(ft);
-		}
-		for (edu.iris.dmc.seed.control.station.Number n : b.getDenominators()) {
-			Denominator ft = objectFactory.createCoefficientsTypeDenominator();
-			ft.setValue(n.getValue());
-			ft.setMinusError(n.getError());
-			ft.setPlusError(n.getError());
-			coefficients.getDenominator().add(ft);
-		}
-
-		return coefficients;
+		return map(b.getResponseType(), b.getNumerators(), b.getDenominators());
 	}
 
 	public static Coefficients map(B054 b) {
+		return map(b.getResponseType(), b.getNumerators(), b.getDenominators());
+	}
+
+	private static Coefficients map(char responseType, List<edu.iris.dmc.seed.control.station.Number> numerators,
+			List<edu.iris.dmc.seed.control.station.Number> denominators) {
 
 		Coefficients coefficients = objectFactory.createCoefficientsType();
 
-		char responseType = b.getResponseType();
 		String transferFunction = "";
 		if ('A' == responseType) {
 			transferFunction = "ANALOG (RADIANS/SECOND)";
@@ -60,23 +37,33 @@ public class CoefficientsMapper extends AbstractMapper {
 		}
 
 		coefficients.setCfTransferFunctionType(transferFunction);
-		for (edu.iris.dmc.seed.control.station.Number n : b.getNumerators()) {
-			Numerator ft = objectFactory.createCoefficientsTypeNumerator();
-			ft.setValue(n.getValue());
-			ft.setMinusError(n.getError());
-			ft.setPlusError(n.getError());
-			coefficients.getNumerator().add(ft);
+		if (numerators != null) {
+			List<Numerator> list = coefficients.getNumerator();
+			ensureCapacity(list, numerators.size());
+			for (edu.iris.dmc.seed.control.station.Number n : numerators) {
+				Numerator ft = objectFactory.createCoefficientsTypeNumerator();
+				ft.setValue(n.getValue());
+				// box the error once for both bounds
+				Double error = n.getError();
+				ft.setMinusError(error);
+				ft.setPlusError(error);
+				list.add(ft);
+			}
 		}
-		for (edu.iris.dmc.seed.control.station.Number n : b.getDenominators()) {
-			Denominator ft = objectFactory.createCoefficientsTypeDenominator();
-			ft.setValue(n.getValue());
-			ft.setMinusError(n.getError());
-			ft.setPlusError(n.getError());
-			coefficients.getDenominator().add(ft);
+		if (denominators != null) {
+			List<Denominator> list = coefficients.getDenominator();
+			ensureCapacity(list, denominators.size());
+			for (edu.iris.dmc.seed.control.station.Number n : denominators) {
+				Denominator ft = objectFactory.createCoefficientsTypeDenominator();
+				ft.setValue(n.getValue());
+				Double error = n.getError();
+				ft.setMinusError(error);
+				ft.setPlusError(error);
+				list.add(ft);
+			}
 		}
 
 		return coefficients;
-
 	}
 
 	public static B054 map(Coefficients c) throws SeedException {
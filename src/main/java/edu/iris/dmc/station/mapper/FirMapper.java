@@ -1,5 +1,7 @@
 package edu.iris.dmc.station.mapper;
 
+import java.util.List;
+
 import edu.iris.dmc.fdsn.station.model.FIR;
 import edu.iris.dmc.fdsn.station.model.FIR.NumeratorCoefficient;
 import edu.iris.dmc.seed.control.dictionary.B041;
@@ -8,35 +10,23 @@ import edu.iris.dmc.seed.control.station.B061;
 public class FirMapper extends AbstractMapper {
 
 	public static FIR map(B041 b) {
-		FIR fType = factory.createFIRType();
-
-		char symmetryCode = b.getSymetryCode();
-
-		if ('A' == symmetryCode) {
-			fType.setSymmetry("NONE");
-		} else if ('B' == (symmetryCode)) {
-			fType.setSymmetry("ODD");
-		} else if ('C' == symmetryCode) {
-			fType.setSymmetry("EVEN");
-		} else {
-			fType.setSymmetry("NONE");
-		}
-
+		FIR fType = create(b.getSymetryCode());
 		fType.setName(b.getName());
+		add(fType, b.getCoefficients());
+		return fType;
+	}
 
-		for (Double d : b.getCoefficients()) {
-			NumeratorCoefficient nc = new NumeratorCoefficient();
-			nc.setValue(d);
-			fType.getNumeratorCoefficient().add(nc);
+	public static FIR build(B061 b) {
+		FIR fType = create(b.getSymetryCode());
+		if (b.getName()!= null && b.getName().length()>25) {
+			fType.setName(b.getName().substring(0, 24));
 		}
-
+		add(fType, b.getCoefficients());
 		return fType;
 	}
-	
-	public static FIR build(B061 b) {
-		FIR fType = factory.createFIRType();
 
-		char symmetryCode = b.getSymetryCode();
+	private static FIR create(char symmetryCode) {
+		FIR fType = factory.createFIRType();
 
 		if ('A' == symmetryCode) {
 			fType.setSymmetry("NONE");
@@ -47,17 +37,33 @@ public class FirMapper extends AbstractMapper {
 		} else {
 			fType.setSymmetry("NONE");
 		}
+		return fType;
+	}
 
-		if (b.getName()!= null && b.getName().length()>25) {
-			fType.setName(b.getName().substring(0, 24));
-		}
-
-		for (Double d : b.getCoefficients()) {
+	private static void add(FIR fType, List<Double> coefficients) {
+		List<NumeratorCoefficient> list = fType.getNumeratorCoefficient();
+		ensureCapacity(list, coefficients.size());
+		for (Double d : coefficients) {
 			NumeratorCoefficient nc = new NumeratorCoefficient();
 			nc.setValue(d);
-			fType.getNumeratorCoefficient().add(nc);
+			list.add(nc);
 		}
+	}
 
-		return fType;
+	/**
+	 * 
+	 * @param f
+	 * @return values of the numerator coefficients, empty if there are none
+	 */
+	public static double[] coefficients(FIR f) {
+		List<NumeratorCoefficient> list = f.getNumeratorCoefficient();
+		if (list == null) {
+			return new double[0];
+		}
+		double[] values = new double[list.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = list.get(i).getValue();
+		}
+		return values;
 	}
 }
@@ -8,29 +8,47 @@ import edu.iris.dmc.seed.control.station.B061;
 public class FirToBlocketteMapper {
 
 	public static B061 map(FIR f) throws SeedException {
-		B061 b = new B061();
-		if (f.getName()!= null && f.getName().length()>25) {
-			b.setName(f.getName().substring(0, 24));
+		B061 b = create(f.getName(), f.getSymmetry());
+		if (f.getNumeratorCoefficient() != null) {
+			for (NumeratorCoefficient n : f.getNumeratorCoefficient()) {
+				b.addCoefficient(n.getValue());
+			}
 		}
+		return b;
+	}
+
+	/**
+	 * 
+	 * @param name         FIR name, only names longer than 25 characters are kept
+	 *                     and truncated
+	 * @param symmetry     NONE, ODD or EVEN
+	 * @param coefficients
+	 * @return the B061
+	 * @throws SeedException
+	 */
+	public static B061 map(String name, String symmetry, double[] coefficients) throws SeedException {
+		B061 b = create(name, symmetry);
+		for (double d : coefficients) {
+			b.addCoefficient(d);
+		}
+		return b;
+	}
 
-		String symmetryCode = f.getSymmetry();
+	private static B061 create(String name, String symmetry) throws SeedException {
+		B061 b = new B061();
+		if (name!= null && name.length()>25) {
+			b.setName(name.substring(0, 24));
+		}
 
-		if ("NONE".equals(symmetryCode)) {
+		if ("NONE".equals(symmetry)) {
 			b.setSymetryCode('A');
-		} else if ("ODD".equals(symmetryCode)) {
+		} else if ("ODD".equals(symmetry)) {
 			b.setSymetryCode('B');
-		} else if ("EVEN".equals(symmetryCode)) {
+		} else if ("EVEN".equals(symmetry)) {
 			b.setSymetryCode('C');
 		} else {
 
 		}
-
-		if (f.getNumeratorCoefficient() != null) {
-			for (NumeratorCoefficient n : f.getNumeratorCoefficient()) {
-				b.addCoefficient(n.getValue());
-			}
-		}
 		return b;
-
 	}
 }
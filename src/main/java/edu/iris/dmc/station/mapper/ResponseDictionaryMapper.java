@@ -0,0 +1,166 @@
+package edu.iris.dmc.station.mapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import edu.iris.dmc.io.SeedFormatter;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.BlocketteFactory;
+import edu.iris.dmc.seed.SeedException;
+import edu.iris.dmc.seed.control.dictionary.B041;
+import edu.iris.dmc.seed.control.dictionary.B042;
+import edu.iris.dmc.seed.control.dictionary.B043;
+import edu.iris.dmc.seed.control.dictionary.B044;
+import edu.iris.dmc.seed.control.dictionary.B047;
+import edu.iris.dmc.seed.control.dictionary.B048;
+import edu.iris.dmc.seed.control.station.B060;
+
+/**
+ * Maps station response blockettes to their response dictionary counterpart
+ * and builds the B060 referencing them.
+ *
+ * B053/B054/B057/B058/B061/B062 and B043/B044/B047/B048/B041/B042 share their
+ * fields once the stage sequence is replaced by a lookup key and a name, so
+ * the dictionary blockette is parsed from the rewritten SEED string.
+ *
+ */
+public class ResponseDictionaryMapper {
+
+	private static final int MAX_LENGTH = 9999;
+	private static final int NAME_LENGTH = 25;
+
+	/**
+	 * Whether b can be written as a response dictionary blockette, the result
+	 * does not depend on units or stage sequence.
+	 *
+	 * @param b
+	 * @param name
+	 * @return false if b has no dictionary counterpart or would be too long
+	 */
+	public static boolean isMappable(Blockette b, String name) throws SeedException {
+		switch (b.getType()) {
+		case 53:
+		case 54:
+		case 57:
+		case 58:
+		case 61:
+		case 62:
+			return dictionaryString(b, name).length() <= MAX_LENGTH;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 *
+	 * @param b    a B053, B054, B057, B058, B061 or B062 with its units set
+	 * @param name response name, a B061 keeps its own if it has one
+	 * @return the B043, B044, B047, B048, B041 or B042 with the same content and
+	 *         no lookup key
+	 * @throws SeedException if b can not be mapped, see
+	 *                       {@link #isMappable(Blockette, String)}
+	 */
+	public static Blockette map(Blockette b, String name) throws SeedException {
+		String text = dictionaryString(b, name);
+		if (text.length() > MAX_LENGTH) {
+			throw new SeedException("Blockette " + b.getType() + " is too long for a response dictionary blockette");
+		}
+		return BlocketteFactory.create(text.getBytes());
+	}
+
+	/**
+	 *
+	 * @param stages lookup keys of the dictionary responses of every stage, by
+	 *               stage sequence
+	 * @return the B060 referencing them
+	 */
+	public static B060 map(SortedMap<Integer, List<Integer>> stages) throws SeedException {
+		StringBuilder body = new StringBuilder();
+		body.append(SeedFormatter.format(stages.size(), 2));
+		for (Map.Entry<Integer, List<Integer>> stage : stages.entrySet()) {
+			body.append(SeedFormatter.format(stage.getKey(), 2));
+			body.append(SeedFormatter.format(stage.getValue().size(), 2));
+			for (Integer key : stage.getValue()) {
+				body.append(SeedFormatter.format(key, 4));
+			}
+		}
+		return (B060) BlocketteFactory.create(header(60, body).getBytes());
+	}
+
+	/**
+	 *
+	 * @param b a blockette returned by {@link #map(Blockette, String)}
+	 * @return its lookup key
+	 */
+	public static int getLookupKey(Blockette b) {
+		switch (b.getType()) {
+		case 41:
+			return ((B041) b).getLookupKey();
+		case 42:
+			return ((B042) b).getLookupKey();
+		case 43:
+			return ((B043) b).getLookupKey();
+		case 44:
+			return ((B044) b).getLookupKey();
+		case 47:
+			return ((B047) b).getLookupKey();
+		case 48:
+			return ((B048) b).getLookupKey();
+		default:
+			throw new IllegalArgumentException("Blockette " + b.getType() + " is not a response dictionary blockette");
+		}
+	}
+
+	private static String dictionaryString(Blockette b, String name) throws SeedException {
+		String text = b.toSeedString();
+		StringBuilder body = new StringBuilder();
+		// lookup key, assigned when added to the dictionary
+		body.append("0000");
+		switch (b.getType()) {
+		case 53:
+			// transfer function type, stage sequence, ...
+			body.append(name(name, "POLES_ZEROS")).append('~');
+			body.append(text.charAt(7)).append(text, 10, text.length());
+			return header(43, body);
+		case 54:
+			body.append(name(name, "COEFFICIENTS")).append('~');
+			body.append(text.charAt(7)).append(text, 10, text.length());
+			return header(44, body);
+		case 62:
+			body.append(name(name, "POLYNOMIAL")).append('~');
+			body.append(text.charAt(7)).append(text, 10, text.length());
+			return header(42, body);
+		case 57:
+			// stage sequence, ...
+			body.append(name(name, "DECIMATION")).append('~');
+			body.append(text, 9, text.length());
+			return header(47, body);
+		case 58:
+			body.append(name(name, "GAIN")).append('~');
+			body.append(text, 9, text.length());
+			return header(48, body);
+		case 61:
+			// stage sequence, response name, ...
+			if (text.charAt(9) == '~') {
+				body.append(name(name, "FIR"));
+			}
+			body.append(text, 9, text.length());
+			return header(41, body);
+		default:
+			throw new SeedException("Blockette " + b.getType() + " has no response dictionary counterpart");
+		}
+	}
+
+	private static String name(String name, String defaultName) {
+		if (name == null || name.trim().isEmpty()) {
+			return defaultName;
+		}
+		name = name.trim().replace('~', ' ');
+		return name.length() > NAME_LENGTH ? name.substring(0, NAME_LENGTH) : name;
+	}
+
+	private static String header(int type, CharSequence body) throws SeedException {
+		return SeedFormatter.format(type, 3) + SeedFormatter.format(body.length() + 7, 4) + body;
+	}
+}
@@ -21,6 +21,8 @@ import edu.iris.dmc.fdsn.station.model.SampleRate;
 
 public class SeedStringBuilder {
 
+	private static final DateTimeFormatter SEED_DATE = DateTimeFormatter.ofPattern("yyyy,DDD,HH:mm:ss.SSSS");
+
 	private List<String> builder = new ArrayList<>();
 	private int type;
 	private char seperator;
@@ -107,10 +109,7 @@ public class SeedStringBuilder {
 		if (time == null) {
 			return null;
 		}
-		DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy,DDD,HH:mm:ss.SSSS");
-
-		String s = dtf.format(time);
-		return s;
+		return SEED_DATE.format(time);
 	}
 
 	public int getType() {
@@ -0,0 +1,227 @@
+package edu.iris.dmc.station.server;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.bind.JAXBException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.iris.dmc.station.converter.ConversionMetrics;
+import edu.iris.dmc.station.converter.MetadataFileFormatConverter;
+import edu.iris.dmc.station.converter.SeedToXmlFileConverter;
+import edu.iris.dmc.station.converter.XmlToSeedFileConverter;
+import edu.iris.dmc.station.util.StationXmlContext;
+import edu.iris.dmc.unit.SimpleUnitFormat;
+
+/**
+ * Converts documents posted over HTTP, keeping the JVM, the JAXB context and
+ * the unit dictionary warm between conversions.
+ *
+ * <ul>
+ * <li><code>POST /seed2xml</code> dataless SEED in, StationXML out</li>
+ * <li><code>POST /xml2seed</code> StationXML in, dataless SEED out</li>
+ * <li><code>GET /stats</code> request latency percentiles, up to the response
+ * being ready to send, and conversion metrics as JSON</li>
+ * </ul>
+ *
+ * Query parameters are passed to the converter as its arguments, for example
+ * <code>/xml2seed?large=true&amp;network=IU</code>. Requests are converted
+ * concurrently on a fixed pool of threads.
+ *
+ */
+public class ConversionServer implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConversionServer.class);
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final LatencyRecorder latencies = new LatencyRecorder();
+	private final ConversionMetrics metrics = new ConversionMetrics();
+
+	/**
+	 *
+	 * @param address use a loopback address to keep the server local
+	 * @param threads number of requests converted at the same time
+	 * @throws IOException
+	 */
+	public ConversionServer(InetSocketAddress address, int threads) throws IOException {
+		this.server = HttpServer.create(address, 0);
+		this.executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/seed2xml", new ConvertHandler(SeedToXmlFileConverter.getInstance(), "dataless",
+				"xml", "application/xml"));
+		server.createContext("/xml2seed", new ConvertHandler(XmlToSeedFileConverter.getInstance(), "xml",
+				"dataless", "application/octet-stream"));
+		server.createContext("/stats", this::stats);
+	}
+
+	/**
+	 * Load what every conversion needs and start accepting requests.
+	 *
+	 * @throws JAXBException
+	 */
+	public void start() throws JAXBException {
+		StationXmlContext.getContext();
+		SimpleUnitFormat.getInstance();
+		server.start();
+		logger.info("Listening on {}", server.getAddress());
+	}
+
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	public LatencyRecorder getLatencies() {
+		return latencies;
+	}
+
+	public ConversionMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void stats(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "Expected GET");
+				return;
+			}
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("latency", latencies.toMap());
+			stats.put("conversions", metrics);
+			byte[] body = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(stats);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Converts the request body through temporary files, the converters work on
+	 * files and a failed conversion can still be answered with an error.
+	 */
+	private class ConvertHandler implements HttpHandler {
+
+		private final MetadataFileFormatConverter<File> converter;
+		private final String sourceSuffix;
+		private final String targetSuffix;
+		private final String contentType;
+
+		ConvertHandler(MetadataFileFormatConverter<File> converter, String sourceSuffix, String targetSuffix,
+				String contentType) {
+			this.converter = converter;
+			this.sourceSuffix = sourceSuffix;
+			this.targetSuffix = targetSuffix;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long start = System.nanoTime();
+			File source = null;
+			File target = null;
+			try {
+				if (!"POST".equals(exchange.getRequestMethod())) {
+					send(exchange, start, 405, "Expected POST");
+					return;
+				}
+				source = File.createTempFile("request", "." + sourceSuffix);
+				target = File.createTempFile("response", "." + targetSuffix);
+				try (InputStream in = exchange.getRequestBody()) {
+					Files.copy(in, source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				if (source.length() == 0) {
+					send(exchange, start, 400, "Empty request");
+					return;
+				}
+				try {
+					converter.convert(source, target, parseQuery(exchange.getRequestURI().getRawQuery()), metrics);
+				} catch (Exception e) {
+					logger.error("Conversion failed", e);
+					send(exchange, start, 422, e.getMessage() == null ? e.toString() : e.getMessage());
+					return;
+				}
+				latencies.record(System.nanoTime() - start);
+				exchange.getResponseHeaders().set("Content-Type", contentType);
+				exchange.sendResponseHeaders(200, target.length());
+				try (OutputStream out = exchange.getResponseBody()) {
+					Files.copy(target.toPath(), out);
+				}
+			} finally {
+				exchange.close();
+				if (source != null) {
+					source.delete();
+				}
+				if (target != null) {
+					target.delete();
+				}
+			}
+		}
+
+		/**
+		 * Record the latency of the request, then answer it. Recorded before the
+		 * client can see the response, so /stats asked right after counts it.
+		 */
+		private void send(HttpExchange exchange, long start, int status, String message) throws IOException {
+			latencies.record(System.nanoTime() - start);
+			ConversionServer.send(exchange, status, message);
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String message) throws IOException {
+		byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+		Map<String, String> args = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return args;
+		}
+		for (String pair : query.split("&")) {
+			if (pair.isEmpty()) {
+				continue;
+			}
+			int index = pair.indexOf('=');
+			String key = index < 0 ? pair : pair.substring(0, index);
+			String value = index < 0 ? Boolean.TRUE.toString() : pair.substring(index + 1);
+			args.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+		}
+		return args;
+	}
+}
@@ -0,0 +1,79 @@
+package edu.iris.dmc.station.server;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request latencies, percentiles are taken over the most recent requests only
+ * so they follow the current load.
+ *
+ * Thread safe.
+ *
+ */
+public class LatencyRecorder {
+
+	private final long[] samples;
+	private long count;
+
+	public LatencyRecorder() {
+		this(8192);
+	}
+
+	/**
+	 *
+	 * @param size number of recent requests percentiles are taken over
+	 */
+	public LatencyRecorder(int size) {
+		this.samples = new long[size];
+	}
+
+	public synchronized void record(long nanoseconds) {
+		samples[(int) (count % samples.length)] = nanoseconds;
+		count++;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 *
+	 * @param percentiles between 0 and 100
+	 * @return latency in nanoseconds at each percentile, 0 if nothing was
+	 *         recorded
+	 */
+	public long[] getPercentiles(double... percentiles) {
+		long[] sorted;
+		synchronized (this) {
+			sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+		}
+		Arrays.sort(sorted);
+		long[] values = new long[percentiles.length];
+		if (sorted.length == 0) {
+			return values;
+		}
+		for (int i = 0; i < percentiles.length; i++) {
+			// nearest rank
+			int rank = (int) Math.ceil(percentiles[i] / 100 * sorted.length);
+			values[i] = sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+		}
+		return values;
+	}
+
+	/**
+	 *
+	 * @return count and the 50th, 90th, 99th percentile and maximum in
+	 *         milliseconds
+	 */
+	public Map<String, Object> toMap() {
+		long[] values = getPercentiles(50, 90, 99, 100);
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("count", getCount());
+		map.put("p50", values[0] / 1e6);
+		map.put("p90", values[1] / 1e6);
+		map.put("p99", values[2] / 1e6);
+		map.put("max", values[3] / 1e6);
+		return map;
+	}
+}
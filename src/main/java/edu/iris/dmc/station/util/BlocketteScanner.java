@@ -0,0 +1,251 @@
+package edu.iris.dmc.station.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import edu.iris.dmc.station.mapper.MetadataConverterException;
+
+/**
+ * Splits the control headers of a SEED volume into {@link LazyBlockette}s
+ * without parsing them.
+ *
+ * Records are read whole, blockettes continued on the next record are joined,
+ * their type and length included, and data records are skipped. The logical record length is taken from the
+ * B010 (or B008) starting the volume.
+ *
+ */
+public class BlocketteScanner implements Iterator<LazyBlockette>, Closeable {
+
+	private static final int HEADER = 8;
+	// blockette type and length
+	private static final int BLOCKETTE_HEADER = 7;
+
+	private final InputStream inputStream;
+	private final byte[] record;
+	private final Queue<LazyBlockette> queue = new ArrayDeque<>();
+
+	// blockette continued on the next record
+	private byte[] pending;
+	private int pendingOffset;
+	private long pendingPosition;
+	private int pendingSequence;
+	// type and length of a blockette cut by the end of the record, completed
+	// by the next record
+	private byte[] pendingHeader;
+	private int pendingHeaderLength;
+	private boolean endOfFile;
+	// byte offset of the record in the buffer
+	private long position;
+
+	public BlocketteScanner(InputStream inputStream) throws IOException {
+		this.inputStream = inputStream;
+		byte[] first = new byte[HEADER + 13];
+		if (!readFully(first, 0, first.length)) {
+			throw new IOException("Expected a SEED volume but the input is empty");
+		}
+		String type = new String(first, HEADER, 3, "US-ASCII");
+		if (first[6] != 'V' || !("010".equals(type) || "008".equals(type))) {
+			throw new IOException("Expected a SEED volume starting with blockette 010 or 008");
+		}
+		int exponent = Integer.parseInt(new String(first, HEADER + 11, 2, "US-ASCII").trim());
+		this.record = new byte[1 << exponent];
+		System.arraycopy(first, 0, record, 0, first.length);
+		if (!readFully(record, first.length, record.length - first.length)) {
+			throw new EOFException("Volume ends in its first record");
+		}
+		scan();
+		prepareNext();
+	}
+
+	/**
+	 * Scan records taken from the middle of a volume, they have to start on a
+	 * record boundary.
+	 *
+	 * @param inputStream
+	 * @param recordLength logical record length of the volume
+	 * @param position     byte offset of the first record in the volume, for
+	 *                     {@link LazyBlockette#getPosition()}
+	 * @throws IOException
+	 */
+	public BlocketteScanner(InputStream inputStream, int recordLength, long position) throws IOException {
+		this.inputStream = inputStream;
+		this.record = new byte[recordLength];
+		this.position = position - recordLength;
+		prepareNext();
+	}
+
+	/**
+	 *
+	 * @return logical record length of the volume
+	 */
+	public int getRecordLength() {
+		return record.length;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !queue.isEmpty();
+	}
+
+	@Override
+	public LazyBlockette next() {
+		LazyBlockette blockette = queue.poll();
+		if (blockette == null) {
+			throw new NoSuchElementException();
+		}
+		try {
+			prepareNext();
+		} catch (IOException e) {
+			throw new MetadataConverterException(e);
+		}
+		return blockette;
+	}
+
+	private void prepareNext() throws IOException {
+		while (queue.isEmpty() && !endOfFile) {
+			if (readFully(record, 0, record.length)) {
+				position += record.length;
+				scan();
+			} else {
+				endOfFile = true;
+			}
+		}
+	}
+
+	/**
+	 * Queue the blockettes of the record in the buffer.
+	 */
+	private void scan() {
+		char type = (char) record[6];
+		if (type != 'V' && type != 'A' && type != 'S' && type != 'T') {
+			// data records
+			pending = null;
+			pendingHeader = null;
+			return;
+		}
+		int offset = HEADER;
+		// record[7] should be '*' for either, not every writer sets it
+		if (pendingHeader != null) {
+			offset = copyHeader(offset);
+		}
+		if (pending != null) {
+			offset = copy(offset);
+		}
+		while (pending == null && offset < record.length) {
+			if (offset + BLOCKETTE_HEADER > record.length) {
+				if (record[offset] >= '0' && record[offset] <= '9') {
+					// the type starts here, the rest is on the next record
+					pendingHeader = new byte[BLOCKETTE_HEADER];
+					pendingHeaderLength = record.length - offset;
+					System.arraycopy(record, offset, pendingHeader, 0, pendingHeaderLength);
+					pendingPosition = position + offset;
+					pendingSequence = digits(0, 6);
+				}
+				break;
+			}
+			int blocketteType = digits(offset, 3);
+			int length = digits(offset + 3, 4);
+			if (blocketteType < 0 || length < BLOCKETTE_HEADER) {
+				// the rest of the record is padding
+				break;
+			}
+			pending = new byte[length];
+			pendingOffset = 0;
+			pendingPosition = position + offset;
+			pendingSequence = digits(0, 6);
+			offset = copy(offset);
+		}
+	}
+
+	/**
+	 * Complete the pending header from offset and start its blockette, the
+	 * header is dropped if it turns out to be padding.
+	 *
+	 * @return the offset following the header
+	 */
+	private int copyHeader(int offset) {
+		int count = BLOCKETTE_HEADER - pendingHeaderLength;
+		System.arraycopy(record, offset, pendingHeader, pendingHeaderLength, count);
+		int blocketteType = digits(pendingHeader, 0, 3);
+		int length = digits(pendingHeader, 3, 4);
+		if (blocketteType >= 0 && length >= BLOCKETTE_HEADER) {
+			pending = new byte[length];
+			System.arraycopy(pendingHeader, 0, pending, 0, BLOCKETTE_HEADER);
+			pendingOffset = BLOCKETTE_HEADER;
+		}
+		pendingHeader = null;
+		return offset + count;
+	}
+
+	/**
+	 * Copy as much of the pending blockette as the record holds from offset,
+	 * queue it once complete.
+	 *
+	 * @return the offset following what was copied
+	 */
+	private int copy(int offset) {
+		int count = Math.min(pending.length - pendingOffset, record.length - offset);
+		System.arraycopy(record, offset, pending, pendingOffset, count);
+		pendingOffset += count;
+		if (pendingOffset == pending.length) {
+			queue.add(new LazyBlockette(digits(pending, 0, 3), pending, pendingSequence, pendingPosition));
+			pending = null;
+		}
+		return offset + count;
+	}
+
+	private int digits(int offset, int length) {
+		return digits(record, offset, length);
+	}
+
+	/**
+	 * Fields are zero or space padded.
+	 *
+	 * @return the number or -1 if the field is blank or not a number
+	 */
+	private static int digits(byte[] bytes, int offset, int length) {
+		int value = 0;
+		boolean blank = true;
+		for (int i = offset; i < offset + length; i++) {
+			if (bytes[i] == ' ' && blank) {
+				continue;
+			}
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+			blank = false;
+		}
+		return blank ? -1 : value;
+	}
+
+	/**
+	 *
+	 * @return false at end of input, a partial record counts as the end
+	 */
+	private boolean readFully(byte[] buffer, int offset, int length) throws IOException {
+		int total = 0;
+		while (total < length) {
+			int read = inputStream.read(buffer, offset + total, length - total);
+			if (read < 0) {
+				return false;
+			}
+			total += read;
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.inputStream != null) {
+			this.inputStream.close();
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package edu.iris.dmc.station.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Formats what a JAXB marshaller writes to a stream writer the way the
+ * marshaller formats its own output with
+ * {@link javax.xml.bind.Marshaller#JAXB_FORMATTED_OUTPUT}: every start tag on a
+ * new line indented by its depth, text kept on the line of its element and
+ * elements without content self-closed.
+ *
+ * Namespace declarations already in scope are not repeated, so fragments
+ * marshalled one after the other inside the same document only declare the
+ * namespaces of the document once. JAXB hands declarations to a stream writer
+ * in the reverse of the order it writes them itself, they are reversed back.
+ *
+ * Carriage returns in text are written as character references, line breaks
+ * in attribute values are left to the underlying writer.
+ *
+ */
+public class IndentingXMLStreamWriter implements XMLStreamWriter {
+
+	private final XMLStreamWriter out;
+	private final String indent;
+
+	private int depth;
+	private boolean didText;
+
+	// start tag not written yet, it is self-closed if the element ends first
+	private Element pending;
+	private final Deque<Map<String, String>> scopes = new ArrayDeque<>();
+
+	// an element left open for children written later, see #leaveOpen
+	private boolean leaveNextOpen;
+	private String skippedChild;
+	private int openDepth = -1;
+	private int skipping;
+
+	/**
+	 *
+	 * @param out    written to, its namespace repairing must be off
+	 * @param indent one level of indentation
+	 */
+	public IndentingXMLStreamWriter(XMLStreamWriter out, String indent) {
+		this.out = out;
+		this.indent = indent;
+	}
+
+	/**
+	 * The next element started is not ended when its end is written, its
+	 * children are written later and it is ended by another
+	 * {@link #writeEndElement()}.
+	 *
+	 * @param skippedChild local name of children of that element that are
+	 *                     dropped, null to keep them all
+	 */
+	public void leaveOpen(String skippedChild) {
+		this.leaveNextOpen = true;
+		this.skippedChild = skippedChild;
+	}
+
+	@Override
+	public void writeStartElement(String localName) throws XMLStreamException {
+		writeStartElement(null, localName, null);
+	}
+
+	@Override
+	public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+		writeStartElement(null, localName, namespaceURI);
+	}
+
+	@Override
+	public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		if (skipping > 0) {
+			skipping++;
+			return;
+		}
+		if (depth == openDepth && skippedChild != null && skippedChild.equals(localName)) {
+			skipping = 1;
+			return;
+		}
+		flushPending(false);
+		if (!didText) {
+			newLine(depth);
+		}
+		depth++;
+		didText = false;
+		pending = new Element(prefix, localName, namespaceURI);
+		if (leaveNextOpen) {
+			leaveNextOpen = false;
+			openDepth = depth;
+		}
+	}
+
+	@Override
+	public void writeEmptyElement(String localName) throws XMLStreamException {
+		writeStartElement(localName);
+		writeEndElement();
+	}
+
+	@Override
+	public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+		writeStartElement(namespaceURI, localName);
+		writeEndElement();
+	}
+
+	@Override
+	public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		writeStartElement(prefix, localName, namespaceURI);
+		writeEndElement();
+	}
+
+	@Override
+	public void writeEndElement() throws XMLStreamException {
+		if (skipping > 0) {
+			skipping--;
+			return;
+		}
+		if (depth == openDepth) {
+			// the end of the element left open, its children come later
+			flushPending(false);
+			skippedChild = null;
+			openDepth = -1;
+			return;
+		}
+		depth--;
+		if (pending != null) {
+			flushPending(true);
+		} else {
+			if (!didText) {
+				newLine(depth);
+			}
+			out.writeEndElement();
+			scopes.pop();
+		}
+		didText = false;
+	}
+
+	@Override
+	public void writeEndDocument() throws XMLStreamException {
+		while (depth > 0) {
+			writeEndElement();
+		}
+		out.writeCharacters("\n");
+		out.writeEndDocument();
+	}
+
+	@Override
+	public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		pending().namespaces.add(new String[] { prefix == null ? "" : prefix, namespaceURI });
+	}
+
+	@Override
+	public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+		writeNamespace("", namespaceURI);
+	}
+
+	@Override
+	public void writeAttribute(String localName, String value) throws XMLStreamException {
+		writeAttribute(null, null, localName, value);
+	}
+
+	@Override
+	public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+		writeAttribute(null, namespaceURI, localName, value);
+	}
+
+	@Override
+	public void writeAttribute(String prefix, String namespaceURI, String localName, String value)
+			throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		pending().attributes.add(new String[] { prefix, namespaceURI, localName, value });
+	}
+
+	@Override
+	public void writeCharacters(String text) throws XMLStreamException {
+		writeCharacters(text.toCharArray(), 0, text.length());
+	}
+
+	@Override
+	public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		flushPending(false);
+		int from = start;
+		for (int i = start; i < start + len; i++) {
+			if (text[i] == '\r') {
+				out.writeCharacters(text, from, i - from);
+				out.writeEntityRef("#13");
+				from = i + 1;
+			}
+		}
+		out.writeCharacters(text, from, start + len - from);
+		didText = true;
+	}
+
+	@Override
+	public void writeCData(String data) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		flushPending(false);
+		out.writeCData(data);
+		didText = true;
+	}
+
+	@Override
+	public void writeComment(String data) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		flushPending(false);
+		out.writeComment(data);
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target) throws XMLStreamException {
+		writeProcessingInstruction(target, null);
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		flushPending(false);
+		if (data == null) {
+			out.writeProcessingInstruction(target);
+		} else {
+			out.writeProcessingInstruction(target, data);
+		}
+	}
+
+	@Override
+	public void writeEntityRef(String name) throws XMLStreamException {
+		if (skipping > 0) {
+			return;
+		}
+		flushPending(false);
+		out.writeEntityRef(name);
+		didText = true;
+	}
+
+	@Override
+	public void writeDTD(String dtd) throws XMLStreamException {
+		out.writeDTD(dtd);
+	}
+
+	@Override
+	public void writeStartDocument() throws XMLStreamException {
+		out.writeStartDocument();
+	}
+
+	@Override
+	public void writeStartDocument(String version) throws XMLStreamException {
+		out.writeStartDocument(version);
+	}
+
+	@Override
+	public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+		out.writeStartDocument(encoding, version);
+	}
+
+	@Override
+	public String getPrefix(String uri) throws XMLStreamException {
+		return out.getPrefix(uri);
+	}
+
+	@Override
+	public void setPrefix(String prefix, String uri) throws XMLStreamException {
+		out.setPrefix(prefix, uri);
+	}
+
+	@Override
+	public void setDefaultNamespace(String uri) throws XMLStreamException {
+		out.setDefaultNamespace(uri);
+	}
+
+	@Override
+	public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+		out.setNamespaceContext(context);
+	}
+
+	@Override
+	public NamespaceContext getNamespaceContext() {
+		return out.getNamespaceContext();
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return out.getProperty(name);
+	}
+
+	@Override
+	public void flush() throws XMLStreamException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws XMLStreamException {
+		out.close();
+	}
+
+	private Element pending() {
+		if (pending == null) {
+			throw new IllegalStateException("Namespaces and attributes go right after a start element");
+		}
+		return pending;
+	}
+
+	private void newLine(int level) throws XMLStreamException {
+		StringBuilder builder = new StringBuilder(1 + level * indent.length());
+		builder.append('\n');
+		for (int i = 0; i < level; i++) {
+			builder.append(indent);
+		}
+		out.writeCharacters(builder.toString());
+	}
+
+	private void flushPending(boolean empty) throws XMLStreamException {
+		Element element = pending;
+		if (element == null) {
+			return;
+		}
+		pending = null;
+		if (empty) {
+			out.writeEmptyElement(value(element.prefix), element.localName, value(element.namespaceURI));
+		} else {
+			out.writeStartElement(value(element.prefix), element.localName, value(element.namespaceURI));
+		}
+		Map<String, String> scope = new HashMap<>();
+		for (int i = element.namespaces.size() - 1; i >= 0; i--) {
+			String[] namespace = element.namespaces.get(i);
+			if (namespace[1].equals(lookup(namespace[0])) || scope.containsKey(namespace[0])) {
+				continue;
+			}
+			scope.put(namespace[0], namespace[1]);
+			if (namespace[0].isEmpty()) {
+				out.writeDefaultNamespace(namespace[1]);
+			} else {
+				out.writeNamespace(namespace[0], namespace[1]);
+			}
+		}
+		if (!empty) {
+			scopes.push(scope);
+		}
+		for (String[] attribute : element.attributes) {
+			if (attribute[1] == null || attribute[1].isEmpty()) {
+				out.writeAttribute(attribute[2], attribute[3]);
+			} else if (attribute[0] == null) {
+				out.writeAttribute(attribute[1], attribute[2], attribute[3]);
+			} else {
+				out.writeAttribute(attribute[0], attribute[1], attribute[2], attribute[3]);
+			}
+		}
+	}
+
+	private String lookup(String prefix) {
+		for (Map<String, String> scope : scopes) {
+			String uri = scope.get(prefix);
+			if (uri != null) {
+				return uri;
+			}
+		}
+		return null;
+	}
+
+	private static String value(String s) {
+		return s == null ? "" : s;
+	}
+
+	private static class Element {
+		private final String prefix;
+		private final String localName;
+		private final String namespaceURI;
+		private final List<String[]> namespaces = new ArrayList<>(2);
+		private final List<String[]> attributes = new ArrayList<>(4);
+
+		Element(String prefix, String localName, String namespaceURI) {
+			this.prefix = prefix;
+			this.localName = localName;
+			this.namespaceURI = namespaceURI;
+		}
+	}
+}
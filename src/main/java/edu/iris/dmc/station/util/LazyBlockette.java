@@ -0,0 +1,207 @@
+package edu.iris.dmc.station.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.BlocketteFactory;
+import edu.iris.dmc.seed.SeedException;
+
+/**
+ * A blockette as found in the volume, only its type and length are decoded.
+ *
+ * The fields a scan usually needs, station and channel codes and epochs, are
+ * read straight from the raw bytes. The blockette itself is parsed the first
+ * time {@link #get()} is called, coefficients and all.
+ *
+ */
+public class LazyBlockette {
+
+	private final int type;
+	private final byte[] bytes;
+	private final int sequence;
+	private final long position;
+	private Blockette blockette;
+
+	LazyBlockette(int type, byte[] bytes, int sequence, long position) {
+		this.type = type;
+		this.bytes = bytes;
+		this.sequence = sequence;
+		this.position = position;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 *
+	 * @return sequence number of the record the blockette starts in
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 *
+	 * @return byte offset of the blockette in the volume
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 *
+	 * @return length of the blockette, type and length fields included
+	 */
+	public int getLength() {
+		return bytes.length;
+	}
+
+	/**
+	 *
+	 * @return the blockette as it appears in the volume
+	 */
+	public String toSeedString() {
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 *
+	 * @return the parsed blockette, parsed once
+	 * @throws SeedException
+	 */
+	public Blockette get() throws SeedException {
+		if (blockette == null) {
+			blockette = BlocketteFactory.create(bytes);
+		}
+		return blockette;
+	}
+
+	/**
+	 *
+	 * @return the station code of a B050
+	 */
+	public String getStationCode() {
+		check(50);
+		return text(7, 12);
+	}
+
+	/**
+	 *
+	 * @return the network code of a B050
+	 */
+	public String getNetworkCode() {
+		check(50);
+		return text(bytes.length - 2, bytes.length);
+	}
+
+	/**
+	 *
+	 * @return the location code of a B052
+	 */
+	public String getLocationCode() {
+		check(52);
+		return text(7, 9);
+	}
+
+	/**
+	 *
+	 * @return the channel code of a B052
+	 */
+	public String getChannelCode() {
+		check(52);
+		return text(9, 12);
+	}
+
+	/**
+	 *
+	 * @return start of the B050 or B052 epoch
+	 */
+	public ZonedDateTime getStartTime() {
+		return toZonedDateTime(epochField(0));
+	}
+
+	/**
+	 *
+	 * @return end of the B050 or B052 epoch, null if open
+	 */
+	public ZonedDateTime getEndTime() {
+		return toZonedDateTime(epochField(1));
+	}
+
+	/**
+	 * The epoch fields follow fixed width fields after the site name of a B050,
+	 * and after the comment and channel flags of a B052.
+	 */
+	private String epochField(int index) {
+		int start;
+		if (type == 50) {
+			// network identifier, word orders
+			start = skipVariable(47, 1) + 9;
+		} else if (type == 52) {
+			// units, coordinates, azimuth, dip, format, record length, rates,
+			// number of comments
+			start = skipVariable(skipVariable(19, 1) + 79, 1);
+		} else {
+			throw new IllegalStateException("Blockette " + type + " has no epoch");
+		}
+		start = skipVariable(start, index);
+		if (start >= bytes.length) {
+			return null;
+		}
+		int end = skipVariable(start, 1) - 1;
+		return text(start, end);
+	}
+
+	/**
+	 *
+	 * @return offset following count variable length fields starting at offset
+	 */
+	private int skipVariable(int offset, int count) {
+		for (int i = 0; i < count; i++) {
+			while (offset < bytes.length && bytes[offset] != '~') {
+				offset++;
+			}
+			offset++;
+		}
+		return Math.min(offset, bytes.length);
+	}
+
+	private String text(int start, int end) {
+		return new String(bytes, start, end - start, StandardCharsets.US_ASCII).trim();
+	}
+
+	private void check(int expected) {
+		if (type != expected) {
+			throw new IllegalStateException("Expected blockette " + expected + " but was " + type);
+		}
+	}
+
+	/**
+	 * Parse a SEED time, YYYY,DDD[,HH[:MM[:SS[.FFFF]]]].
+	 *
+	 * @return null for an empty field
+	 */
+	static ZonedDateTime toZonedDateTime(String text) {
+		if (text == null || text.isEmpty()) {
+			return null;
+		}
+		String[] parts = text.split("[,:.]");
+		int year = Integer.parseInt(parts[0]);
+		int day = Integer.parseInt(parts[1]);
+		int hour = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+		int minute = parts.length > 3 ? Integer.parseInt(parts[3]) : 0;
+		int second = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+		int nano = 0;
+		if (parts.length > 5) {
+			String fraction = (parts[5] + "000000000").substring(0, 9);
+			nano = Integer.parseInt(fraction);
+		}
+		return ZonedDateTime.of(LocalDate.ofYearDay(year, day), LocalTime.of(hour, minute, second, nano),
+				ZoneOffset.UTC);
+	}
+}
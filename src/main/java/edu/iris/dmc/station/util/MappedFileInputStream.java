@@ -0,0 +1,123 @@
+package edu.iris.dmc.station.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through read-only memory mappings instead of read system calls.
+ *
+ * Bytes are copied once, from the mapping straight into the caller's array,
+ * and pages come from the page cache shared by every process mapping the same
+ * file. Files larger than one mapping are mapped one window at a time.
+ *
+ */
+public class MappedFileInputStream extends InputStream {
+
+	private static final long WINDOW = 256L * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long size;
+	private long position;
+	private MappedByteBuffer buffer;
+	private long mark;
+
+	public MappedFileInputStream(File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.size = channel.size();
+	}
+
+	/**
+	 *
+	 * @return the current window with bytes remaining, null at end of file
+	 */
+	private MappedByteBuffer window() throws IOException {
+		if (buffer != null && buffer.hasRemaining()) {
+			return buffer;
+		}
+		if (position >= size) {
+			return null;
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+		position += buffer.limit();
+		return buffer;
+	}
+
+	@Override
+	public int read() throws IOException {
+		MappedByteBuffer window = window();
+		if (window == null) {
+			return -1;
+		}
+		return window.get() & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		MappedByteBuffer window = window();
+		if (window == null) {
+			return -1;
+		}
+		int count = Math.min(length, window.remaining());
+		window.get(bytes, offset, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = Math.min(Math.max(n, 0), available());
+		long target = offset() + skipped;
+		seek(target);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, size - offset());
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		mark = offset();
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		seek(mark);
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = null;
+		channel.close();
+	}
+
+	/**
+	 *
+	 * @return offset in the file of the next byte to be read
+	 */
+	private long offset() {
+		return buffer == null ? position : position - buffer.remaining();
+	}
+
+	private void seek(long offset) {
+		long start = position - (buffer == null ? 0 : buffer.limit());
+		if (buffer != null && offset >= start && offset <= position) {
+			buffer.position((int) (offset - start));
+		} else {
+			buffer = null;
+			position = offset;
+		}
+	}
+}
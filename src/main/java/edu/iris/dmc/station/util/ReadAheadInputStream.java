@@ -0,0 +1,151 @@
+package edu.iris.dmc.station.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads another stream on its own thread, a few chunks ahead of the reader.
+ *
+ * Wrapped around a {@link java.util.zip.GZIPInputStream} the file is inflated
+ * while the previous chunks are parsed, instead of in between.
+ *
+ * One reader thread only.
+ *
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	private static final byte[] END = new byte[0];
+
+	private final InputStream in;
+	private final BlockingQueue<byte[]> chunks;
+	private final Thread thread;
+	private volatile IOException error;
+	private volatile boolean closed;
+	private byte[] chunk;
+	private int offset;
+
+	public ReadAheadInputStream(InputStream in) {
+		this(in, 65536, 4);
+	}
+
+	/**
+	 *
+	 * @param in        read on another thread and closed with this stream
+	 * @param chunkSize bytes read at a time
+	 * @param chunks    chunks read before the reader takes them
+	 */
+	public ReadAheadInputStream(InputStream in, int chunkSize, int chunks) {
+		this.in = in;
+		this.chunks = new ArrayBlockingQueue<>(chunks);
+		this.thread = new Thread(() -> fill(chunkSize), "read-ahead");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void fill(int chunkSize) {
+		try {
+			byte[] buffer = new byte[chunkSize];
+			int count = 0;
+			int n;
+			while (!closed && (n = in.read(buffer, count, buffer.length - count)) >= 0) {
+				count += n;
+				if (count == buffer.length) {
+					put(buffer);
+					buffer = new byte[chunkSize];
+					count = 0;
+				}
+			}
+			if (count > 0) {
+				put(Arrays.copyOf(buffer, count));
+			}
+		} catch (IOException e) {
+			error = e;
+		} catch (InterruptedException e) {
+			return;
+		}
+		try {
+			put(END);
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	private void put(byte[] bytes) throws InterruptedException {
+		while (!closed && !chunks.offer(bytes, 100, TimeUnit.MILLISECONDS)) {
+			// the reader is busy
+		}
+	}
+
+	/**
+	 *
+	 * @return the current chunk with bytes remaining, null at end of stream
+	 */
+	private byte[] chunk() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (chunk == END) {
+			if (error != null) {
+				throw error;
+			}
+			return null;
+		}
+		if (chunk != null && offset < chunk.length) {
+			return chunk;
+		}
+		try {
+			chunk = chunks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		offset = 0;
+		return chunk();
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] bytes = chunk();
+		return bytes == null ? -1 : bytes[offset++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int off, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		byte[] current = chunk();
+		if (current == null) {
+			return -1;
+		}
+		int count = Math.min(length, current.length - offset);
+		System.arraycopy(current, offset, bytes, off, count);
+		offset += count;
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return chunk == null || chunk == END ? 0 : chunk.length - offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		thread.interrupt();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		in.close();
+	}
+}
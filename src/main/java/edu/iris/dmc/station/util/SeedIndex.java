@@ -0,0 +1,419 @@
+package edu.iris.dmc.station.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.SeedException;
+import edu.iris.dmc.seed.Volume;
+
+/**
+ * Where each station and channel epoch of a SEED volume is, so one station can
+ * be read without parsing the rest of the volume.
+ *
+ * The index is built in one pass of a {@link BlocketteScanner}, no blockette is
+ * parsed, and kept next to the volume as <code>volume.idx</code>. It is
+ * rebuilt when the volume's size or modification time no longer match. B011
+ * is not used, it only has the first record of each station code, not of each
+ * epoch or channel.
+ *
+ */
+public class SeedIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(SeedIndex.class);
+
+	private static final int MAGIC = 0x53494458; // SIDX
+	private static final int VERSION = 1;
+	private static final long NULL_TIME = Long.MIN_VALUE;
+
+	private long volumeLength;
+	private long volumeModified;
+	private int recordLength;
+	private long dictionaryLength;
+	private final List<StationEntry> stations = new ArrayList<>();
+	// parsed on the first readStation, shared by every station read after
+	private List<Blockette> dictionary;
+
+	private SeedIndex() {
+	}
+
+	/**
+	 * Read the index next to the volume, build and write it first if it is
+	 * missing or out of date.
+	 *
+	 * @param volume
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static SeedIndex load(File volume) throws IOException {
+		File file = indexFile(volume);
+		if (file.exists()) {
+			try {
+				SeedIndex index = read(file);
+				if (index.volumeLength == volume.length() && index.volumeModified == volume.lastModified()) {
+					return index;
+				}
+			} catch (IOException e) {
+				logger.warn("Rebuilding unreadable index {}: {}", file, e.getMessage());
+			}
+		}
+		SeedIndex index = build(volume);
+		try {
+			index.write(file);
+		} catch (IOException e) {
+			// a read only directory, the index still works in memory
+			logger.warn("Could not write index {}: {}", file, e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 *
+	 * @param volume
+	 * @return where the index of volume is kept
+	 */
+	public static File indexFile(File volume) {
+		return new File(volume.getPath() + ".idx");
+	}
+
+	/**
+	 * Scan the volume once.
+	 *
+	 * @param volume
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static SeedIndex build(File volume) throws IOException {
+		SeedIndex index = new SeedIndex();
+		index.volumeLength = volume.length();
+		index.volumeModified = volume.lastModified();
+		index.dictionaryLength = index.volumeLength;
+		StationEntry station = null;
+		try (BlocketteScanner scanner = new BlocketteScanner(new MappedFileInputStream(volume))) {
+			index.recordLength = scanner.getRecordLength();
+			while (scanner.hasNext()) {
+				LazyBlockette blockette = scanner.next();
+				int type = blockette.getType();
+				if (type == 50) {
+					// stations start on a new record
+					long start = blockette.getPosition() - blockette.getPosition() % index.recordLength;
+					if (station != null) {
+						station.length = start - station.position;
+					} else {
+						index.dictionaryLength = start;
+					}
+					station = new StationEntry(blockette.getNetworkCode(), blockette.getStationCode(),
+							blockette.getStartTime(), blockette.getEndTime(), blockette.getSequence(), start);
+					index.stations.add(station);
+				} else if (type == 52 && station != null) {
+					station.channels.add(new ChannelEntry(blockette.getLocationCode(), blockette.getChannelCode(),
+							blockette.getStartTime(), blockette.getEndTime(), blockette.getSequence(),
+							blockette.getPosition()));
+				} else if (type > 62 && station != null && station.length == 0) {
+					// time span records follow the stations
+					long start = blockette.getPosition() - blockette.getPosition() % index.recordLength;
+					station.length = start - station.position;
+				}
+			}
+		}
+		if (station != null && station.length == 0) {
+			station.length = index.volumeLength - station.position;
+		}
+		return index;
+	}
+
+	public static SeedIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a SEED index or a different version: " + file);
+			}
+			SeedIndex index = new SeedIndex();
+			index.volumeLength = in.readLong();
+			index.volumeModified = in.readLong();
+			index.recordLength = in.readInt();
+			index.dictionaryLength = in.readLong();
+			int numberOfStations = in.readInt();
+			for (int i = 0; i < numberOfStations; i++) {
+				StationEntry station = new StationEntry(in.readUTF(), in.readUTF(), readTime(in), readTime(in),
+						in.readInt(), in.readLong());
+				station.length = in.readLong();
+				int numberOfChannels = in.readInt();
+				for (int j = 0; j < numberOfChannels; j++) {
+					station.channels.add(new ChannelEntry(in.readUTF(), in.readUTF(), readTime(in), readTime(in),
+							in.readInt(), in.readLong()));
+				}
+				index.stations.add(station);
+			}
+			return index;
+		} catch (EOFException e) {
+			throw new IOException("Truncated SEED index: " + file, e);
+		}
+	}
+
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(volumeLength);
+			out.writeLong(volumeModified);
+			out.writeInt(recordLength);
+			out.writeLong(dictionaryLength);
+			out.writeInt(stations.size());
+			for (StationEntry station : stations) {
+				out.writeUTF(station.network);
+				out.writeUTF(station.station);
+				writeTime(out, station.start);
+				writeTime(out, station.end);
+				out.writeInt(station.sequence);
+				out.writeLong(station.position);
+				out.writeLong(station.length);
+				out.writeInt(station.channels.size());
+				for (ChannelEntry channel : station.channels) {
+					out.writeUTF(channel.location);
+					out.writeUTF(channel.channel);
+					writeTime(out, channel.start);
+					writeTime(out, channel.end);
+					out.writeInt(channel.sequence);
+					out.writeLong(channel.position);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return every station epoch in volume order
+	 */
+	public List<StationEntry> getStations() {
+		return Collections.unmodifiableList(stations);
+	}
+
+	/**
+	 *
+	 * @param network null for any
+	 * @param station
+	 * @return epochs of the station in volume order
+	 */
+	public List<StationEntry> find(String network, String station) {
+		List<StationEntry> found = new ArrayList<>();
+		for (StationEntry entry : stations) {
+			if ((network == null || network.equals(entry.network)) && station.equals(entry.station)) {
+				found.add(entry);
+			}
+		}
+		return found;
+	}
+
+	public int getRecordLength() {
+		return recordLength;
+	}
+
+	/**
+	 * Read one station epoch of the volume this index was built from, nothing
+	 * else is read. The dictionary is read and parsed by the first call only.
+	 *
+	 * @param volume
+	 * @param entry
+	 * @return a volume with the dictionary blockettes and the station, the
+	 *         dictionary blockettes are shared with the other volumes returned
+	 * @throws IOException
+	 * @throws SeedException
+	 */
+	public Volume readStation(File volume, StationEntry entry) throws IOException, SeedException {
+		Volume result = new Volume();
+		try (RandomAccessFile file = new RandomAccessFile(volume, "r")) {
+			for (Blockette blockette : dictionary(file)) {
+				result.add(blockette);
+			}
+			for (LazyBlockette blockette : read(file, entry.position, entry.length)) {
+				result.add(blockette.get());
+			}
+		}
+		return result;
+	}
+
+	private synchronized List<Blockette> dictionary(RandomAccessFile file) throws IOException, SeedException {
+		if (dictionary == null) {
+			List<Blockette> blockettes = new ArrayList<>();
+			for (LazyBlockette blockette : read(file, 0, dictionaryLength)) {
+				// B011 and B012 describe the whole volume
+				if (blockette.getType() != 11 && blockette.getType() != 12) {
+					blockettes.add(blockette.get());
+				}
+			}
+			dictionary = blockettes;
+		}
+		return dictionary;
+	}
+
+	private List<LazyBlockette> read(RandomAccessFile file, long position, long length) throws IOException {
+		byte[] bytes = new byte[(int) length];
+		file.seek(position);
+		file.readFully(bytes);
+		List<LazyBlockette> blockettes = new ArrayList<>();
+		try (BlocketteScanner scanner = new BlocketteScanner(new ByteArrayInputStream(bytes), recordLength,
+				position)) {
+			while (scanner.hasNext()) {
+				blockettes.add(scanner.next());
+			}
+		}
+		return blockettes;
+	}
+
+	static void writeTime(DataOutputStream out, ZonedDateTime time) throws IOException {
+		if (time == null) {
+			out.writeLong(NULL_TIME);
+		} else {
+			out.writeLong(time.toEpochSecond());
+			out.writeInt(time.getNano());
+		}
+	}
+
+	static ZonedDateTime readTime(DataInputStream in) throws IOException {
+		long seconds = in.readLong();
+		if (seconds == NULL_TIME) {
+			return null;
+		}
+		return ZonedDateTime.ofInstant(Instant.ofEpochSecond(seconds, in.readInt()), ZoneOffset.UTC);
+	}
+
+	/**
+	 * A station epoch, its B050 and every blockette up to the next station.
+	 */
+	public static class StationEntry {
+		private final String network;
+		private final String station;
+		private final ZonedDateTime start;
+		private final ZonedDateTime end;
+		private final int sequence;
+		private final long position;
+		private long length;
+		private final List<ChannelEntry> channels = new ArrayList<>();
+
+		StationEntry(String network, String station, ZonedDateTime start, ZonedDateTime end, int sequence,
+				long position) {
+			this.network = network;
+			this.station = station;
+			this.start = start;
+			this.end = end;
+			this.sequence = sequence;
+			this.position = position;
+		}
+
+		public String getNetwork() {
+			return network;
+		}
+
+		public String getStation() {
+			return station;
+		}
+
+		public ZonedDateTime getStart() {
+			return start;
+		}
+
+		public ZonedDateTime getEnd() {
+			return end;
+		}
+
+		/**
+		 *
+		 * @return sequence number of the first record of the station
+		 */
+		public int getSequence() {
+			return sequence;
+		}
+
+		/**
+		 *
+		 * @return byte offset of the first record of the station
+		 */
+		public long getPosition() {
+			return position;
+		}
+
+		/**
+		 *
+		 * @return bytes taken by the records of the station
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		public List<ChannelEntry> getChannels() {
+			return Collections.unmodifiableList(channels);
+		}
+	}
+
+	/**
+	 * A channel epoch, its B052.
+	 */
+	public static class ChannelEntry {
+		private final String location;
+		private final String channel;
+		private final ZonedDateTime start;
+		private final ZonedDateTime end;
+		private final int sequence;
+		private final long position;
+
+		ChannelEntry(String location, String channel, ZonedDateTime start, ZonedDateTime end, int sequence,
+				long position) {
+			this.location = location;
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.sequence = sequence;
+			this.position = position;
+		}
+
+		public String getLocation() {
+			return location;
+		}
+
+		public String getChannel() {
+			return channel;
+		}
+
+		public ZonedDateTime getStart() {
+			return start;
+		}
+
+		public ZonedDateTime getEnd() {
+			return end;
+		}
+
+		/**
+		 *
+		 * @return sequence number of the record the B052 starts in
+		 */
+		public int getSequence() {
+			return sequence;
+		}
+
+		/**
+		 *
+		 * @return byte offset of the B052
+		 */
+		public long getPosition() {
+			return position;
+		}
+	}
+}
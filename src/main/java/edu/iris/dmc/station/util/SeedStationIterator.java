@@ -0,0 +1,155 @@
+package edu.iris.dmc.station.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.SeedException;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.blockette.util.BlocketteItrator;
+import edu.iris.dmc.seed.control.station.B050;
+import edu.iris.dmc.seed.director.BlocketteDirector;
+import edu.iris.dmc.station.converter.ConversionMetrics;
+import edu.iris.dmc.station.converter.ConversionMetrics.Phase;
+import edu.iris.dmc.station.converter.DictionaryLookup;
+import edu.iris.dmc.station.converter.SeedToXmlDocumentConverter;
+import edu.iris.dmc.station.mapper.MetadataConverterException;
+
+/**
+ * Reads a SEED volume one station at a time.
+ *
+ * Index and abbreviation blockettes are kept for the life of the iterator,
+ * station blockettes (B050 and everything up to the next B050) are only held
+ * until the station is mapped. Peak memory is therefore bounded by the
+ * dictionary plus the largest single station, not by the whole volume.
+ *
+ * Networks are created from B050 and B033 only and carry no start or end date,
+ * those can only be known after all stations of the network were read.
+ *
+ */
+public class SeedStationIterator implements Iterator<Station>, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(SeedStationIterator.class);
+
+	private final InputStream inputStream;
+	private final BlocketteItrator iterator;
+	private final SeedToXmlDocumentConverter converter = SeedToXmlDocumentConverter.getInstance();
+
+	private final Volume dictionary = new Volume();
+	private final DictionaryLookup lookup = new DictionaryLookup(dictionary);
+	private final ConversionMetrics metrics;
+	private B050 pending;
+	private Network network;
+	private Station next;
+
+	public SeedStationIterator(InputStream inputStream) throws IOException {
+		this(inputStream, new ConversionMetrics());
+	}
+
+	/**
+	 * 
+	 * @param inputStream
+	 * @param metrics gets the blockettes read, the time spent reading, mapping
+	 *                and building the dictionary, and the dictionary lookups
+	 * @throws IOException
+	 */
+	public SeedStationIterator(InputStream inputStream, ConversionMetrics metrics) throws IOException {
+		this.inputStream = inputStream;
+		this.metrics = metrics;
+		try {
+			this.iterator = new BlocketteDirector().process(inputStream);
+			prepareNext();
+		} catch (SeedException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public Station next() {
+		if (next == null) {
+			throw new NoSuchElementException();
+		}
+		Station station = next;
+		try {
+			prepareNext();
+		} catch (SeedException e) {
+			throw new MetadataConverterException(e);
+		}
+		return station;
+	}
+
+	private void prepareNext() throws SeedException {
+		next = null;
+
+		B050 b050 = pending;
+		Volume station = null;
+		pending = null;
+		if (b050 != null) {
+			station = new Volume();
+			station.add(b050);
+		}
+
+		long start = System.nanoTime();
+		while (iterator.hasNext()) {
+			Blockette blockette = iterator.next();
+			int type = blockette.getType();
+			metrics.countBlockette(type);
+			if (type == 50) {
+				if (b050 != null) {
+					pending = (B050) blockette;
+					break;
+				}
+				b050 = (B050) blockette;
+				station = new Volume();
+				station.add(b050);
+			} else if (type > 50) {
+				if (station == null) {
+					logger.warn("Ignoring blockette {} found before any station", type);
+					continue;
+				}
+				station.add(blockette);
+			} else {
+				metrics.end(Phase.PARSE, start);
+				start = System.nanoTime();
+				dictionary.add(blockette);
+				lookup.add(blockette);
+				metrics.end(Phase.DICTIONARY, start);
+				start = System.nanoTime();
+			}
+		}
+		metrics.end(Phase.PARSE, start);
+
+		if (b050 != null) {
+			start = System.nanoTime();
+			long hits = lookup.getHits();
+			long misses = lookup.getMisses();
+			if (network == null || !b050.getNetworkCode().equals(network.getCode())) {
+				network = converter.createNetwork(b050, lookup);
+			}
+			next = converter.convert(b050, lookup);
+			next.setNetwork(network);
+			metrics.addDictionary(lookup.getHits() - hits, lookup.getMisses() - misses);
+			metrics.end(Phase.MAP, start);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.inputStream != null) {
+			this.inputStream.close();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package edu.iris.dmc.station.util;
+
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Channel;
+import edu.iris.dmc.fdsn.station.model.Station;
+
+/**
+ * Selects networks, stations and channels by code and epoch.
+ *
+ * Codes are matched against comma separated lists of glob patterns where
+ * <code>*</code> matches any number of characters and <code>?</code> exactly
+ * one, <code>--</code> stands for the empty location code. An epoch matches the
+ * time window when it ends after start and begins before end. Criteria left
+ * null match everything.
+ *
+ */
+public class StationFilter {
+
+	private Pattern network;
+	private Pattern station;
+	private Pattern location;
+	private Pattern channel;
+	private ZonedDateTime start;
+	private ZonedDateTime end;
+
+	/**
+	 * Build a filter from the converter arguments "network", "station",
+	 * "location", "channel", "starttime" and "endtime".
+	 *
+	 * @param args
+	 * @return the filter or null if args have no criteria
+	 */
+	public static StationFilter of(Map<String, String> args) {
+		if (args == null) {
+			return null;
+		}
+		StationFilter filter = new StationFilter();
+		filter.setNetwork(args.get("network"));
+		filter.setStation(args.get("station"));
+		filter.setLocation(args.get("location"));
+		filter.setChannel(args.get("channel"));
+		if (args.get("starttime") != null) {
+			filter.setStart(IrisUtil.toZonedDateTime(args.get("starttime")));
+		}
+		if (args.get("endtime") != null) {
+			filter.setEnd(IrisUtil.toZonedDateTime(args.get("endtime")));
+		}
+		return filter.isEmpty() ? null : filter;
+	}
+
+	public void setNetwork(String patterns) {
+		this.network = compile(patterns);
+	}
+
+	public void setStation(String patterns) {
+		this.station = compile(patterns);
+	}
+
+	public void setLocation(String patterns) {
+		this.location = compile(patterns);
+	}
+
+	public void setChannel(String patterns) {
+		this.channel = compile(patterns);
+	}
+
+	public void setStart(ZonedDateTime start) {
+		this.start = start;
+	}
+
+	public void setEnd(ZonedDateTime end) {
+		this.end = end;
+	}
+
+	public boolean isEmpty() {
+		return network == null && station == null && location == null && channel == null && start == null
+				&& end == null;
+	}
+
+	/**
+	 *
+	 * @return true if channels are selected by something other than their
+	 *         station
+	 */
+	public boolean hasChannelCriteria() {
+		return location != null || channel != null || start != null || end != null;
+	}
+
+	public boolean acceptNetwork(String code) {
+		return matches(network, code);
+	}
+
+	public boolean acceptStation(String code, ZonedDateTime startDate, ZonedDateTime endDate) {
+		return matches(station, code) && overlaps(startDate, endDate);
+	}
+
+	public boolean acceptChannel(String locationCode, String code, ZonedDateTime startDate, ZonedDateTime endDate) {
+		return matches(location, locationCode == null ? "" : locationCode.trim()) && matches(channel, code)
+				&& overlaps(startDate, endDate);
+	}
+
+	/**
+	 * Remove the channels of an unmarshalled station this filter rejects.
+	 *
+	 * @param s
+	 * @return false if channels were selected and none is left
+	 */
+	public boolean filterChannels(Station s) {
+		if (!hasChannelCriteria() || s.getChannels() == null) {
+			return true;
+		}
+		for (Iterator<Channel> it = s.getChannels().iterator(); it.hasNext();) {
+			Channel c = it.next();
+			if (!acceptChannel(c.getLocationCode(), c.getCode(), c.getStartDate(), c.getEndDate())) {
+				it.remove();
+			}
+		}
+		return location == null && channel == null || !s.getChannels().isEmpty();
+	}
+
+	private boolean overlaps(ZonedDateTime startDate, ZonedDateTime endDate) {
+		if (start != null && endDate != null && endDate.isBefore(start)) {
+			return false;
+		}
+		if (end != null && startDate != null && startDate.isAfter(end)) {
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean matches(Pattern pattern, String code) {
+		if (pattern == null) {
+			return true;
+		}
+		return pattern.matcher(code == null ? "" : code.trim()).matches();
+	}
+
+	static Pattern compile(String patterns) {
+		if (patterns == null || patterns.trim().isEmpty()) {
+			return null;
+		}
+		StringBuilder regex = new StringBuilder();
+		for (String glob : patterns.split(",")) {
+			glob = glob.trim();
+			if ("--".equals(glob)) {
+				glob = "";
+			}
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+			int literal = 0;
+			for (int i = 0; i < glob.length(); i++) {
+				char c = glob.charAt(i);
+				if (c == '*' || c == '?') {
+					if (i > literal) {
+						regex.append(Pattern.quote(glob.substring(literal, i)));
+					}
+					regex.append(c == '*' ? ".*" : ".");
+					literal = i + 1;
+				}
+			}
+			if (literal < glob.length()) {
+				regex.append(Pattern.quote(glob.substring(literal)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+	}
+}
@@ -4,14 +4,16 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
+import java.time.ZonedDateTime;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.EventFilter;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -38,14 +40,32 @@ public class StationIterator implements Iterator<Station>, Closeable {
 
 	private InputStream inputStream;
 
+	private StationFilter filter;
+
 	public StationIterator(InputStream inputStream) throws IOException {
+		this(inputStream, null);
+	}
+
+	/**
+	 * Only return the stations and channels filter accepts. Networks and stations
+	 * are checked against the attributes of their start element and channels are
+	 * dropped from the event stream, what is rejected is never unmarshalled.
+	 * 
+	 * @param inputStream
+	 * @param filter      may be null
+	 * @throws IOException
+	 */
+	public StationIterator(InputStream inputStream, StationFilter filter) throws IOException {
 		this.inputStream = inputStream;
+		this.filter = filter;
 		XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
 		try {
 			this.xmlEventReader = xmlFactory.createXMLEventReader(inputStream);
+			if (filter != null && filter.hasChannelCriteria()) {
+				this.xmlEventReader = xmlFactory.createFilteredReader(xmlEventReader, new ChannelFilter(filter));
+			}
 
-			JAXBContext jc = JAXBContext.newInstance(edu.iris.dmc.fdsn.station.model.ObjectFactory.class);
-			this.unmarshaller = jc.createUnmarshaller();
+			this.unmarshaller = StationXmlContext.getContext().createUnmarshaller();
 			prepareNext();
 		} catch (XMLStreamException | JAXBException | ParseException e) {
 			throw new IOException(e);
@@ -114,6 +134,10 @@ public class StationIterator implements Iterator<Station>, Closeable {
 							// Do nothing for now
 						}
 					}
+					if (filter != null && !filter.acceptNetwork(network.getCode())) {
+						skipElement();
+						break;
+					}
 					xmlEventReader.next();
 					while (xmlEventReader.hasNext()) {
 						XMLEvent event = xmlEventReader.peek();
@@ -134,8 +158,15 @@ public class StationIterator implements Iterator<Station>, Closeable {
 						}
 					}
 				} else if ("Station".equals(startElement.getName().getLocalPart())) {
+					if (filter != null && !acceptStation(startElement)) {
+						skipElement();
+						break;
+					}
 					JAXBElement<Station> stationElement = unmarshaller.unmarshal(xmlEventReader, Station.class);
 					Station station = stationElement.getValue();
+					if (filter != null && !filter.filterChannels(station)) {
+						break;
+					}
 					station.setNetwork(network);
 					queue.add(station);
 					return;
@@ -154,6 +185,84 @@ public class StationIterator implements Iterator<Station>, Closeable {
 
 	}
 
+	private boolean acceptStation(StartElement element) {
+		return filter.acceptStation(attribute(element, "code"), toZonedDateTime(attribute(element, "startDate")),
+				toZonedDateTime(attribute(element, "endDate")));
+	}
+
+	private static String attribute(StartElement element, String name) {
+		Attribute attribute = element.getAttributeByName(new QName(name));
+		return attribute == null ? null : attribute.getValue();
+	}
+
+	private static ZonedDateTime toZonedDateTime(String value) {
+		return value == null ? null : IrisUtil.toZonedDateTime(value);
+	}
+
+	/**
+	 * Consume the element starting at the next event and everything inside it.
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 0;
+		do {
+			XMLEvent event = xmlEventReader.nextEvent();
+			if (event.isStartElement()) {
+				depth++;
+			} else if (event.isEndElement()) {
+				depth--;
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * Drops the channels filter rejects, from their start element to their end
+	 * element. The reader asks again about an event it has not consumed yet, so
+	 * the answer for the last event is kept.
+	 */
+	private static class ChannelFilter implements EventFilter {
+
+		private final StationFilter filter;
+		private int depth;
+		private XMLEvent last;
+		private boolean lastAccepted;
+
+		ChannelFilter(StationFilter filter) {
+			this.filter = filter;
+		}
+
+		@Override
+		public boolean accept(XMLEvent event) {
+			if (event == last) {
+				return lastAccepted;
+			}
+			last = event;
+			lastAccepted = check(event);
+			return lastAccepted;
+		}
+
+		private boolean check(XMLEvent event) {
+			if (depth > 0) {
+				if (event.isStartElement()) {
+					depth++;
+				} else if (event.isEndElement()) {
+					depth--;
+				}
+				return false;
+			}
+			if (event.isStartElement()) {
+				StartElement element = event.asStartElement();
+				if ("Channel".equals(element.getName().getLocalPart())
+						&& !filter.acceptChannel(attribute(element, "locationCode"), attribute(element, "code"),
+								toZonedDateTime(attribute(element, "startDate")),
+								toZonedDateTime(attribute(element, "endDate")))) {
+					depth = 1;
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (this.inputStream != null) {
@@ -0,0 +1,97 @@
+package edu.iris.dmc.station.util;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.iris.dmc.fdsn.station.model.ObjectFactory;
+
+/**
+ * Single, lazily created {@link JAXBContext} for the FDSN StationXML model.
+ *
+ * Creating a context is expensive, creating marshallers and unmarshallers from
+ * an existing one is cheap. Marshaller and Unmarshaller are not thread safe, so
+ * one instance of each is kept per thread.
+ *
+ */
+public final class StationXmlContext {
+
+	private static final Logger logger = LoggerFactory.getLogger(StationXmlContext.class);
+
+	private static volatile JAXBContext context;
+	private static volatile long initializationTime = -1;
+
+	private static final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+	private static final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
+
+	private StationXmlContext() {
+	}
+
+	/**
+	 *
+	 * @return the shared context, created on first use
+	 * @throws JAXBException
+	 */
+	public static JAXBContext getContext() throws JAXBException {
+		JAXBContext result = context;
+		if (result == null) {
+			synchronized (StationXmlContext.class) {
+				result = context;
+				if (result == null) {
+					long start = System.nanoTime();
+					result = JAXBContext.newInstance(ObjectFactory.class);
+					initializationTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					logger.info("JAXBContext initialized in {} ms", initializationTime);
+					context = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The returned marshaller is formatted and owned by the calling thread, do not
+	 * change its properties or hand it to another thread.
+	 *
+	 * @return a marshaller bound to the current thread
+	 * @throws JAXBException
+	 */
+	public static Marshaller getMarshaller() throws JAXBException {
+		Marshaller marshaller = marshallers.get();
+		if (marshaller == null) {
+			marshaller = getContext().createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+			marshallers.set(marshaller);
+		}
+		return marshaller;
+	}
+
+	/**
+	 *
+	 * @return an unmarshaller bound to the current thread
+	 * @throws JAXBException
+	 */
+	public static Unmarshaller getUnmarshaller() throws JAXBException {
+		Unmarshaller unmarshaller = unmarshallers.get();
+		if (unmarshaller == null) {
+			unmarshaller = getContext().createUnmarshaller();
+			unmarshallers.set(unmarshaller);
+		}
+		return unmarshaller;
+	}
+
+	/**
+	 *
+	 * @return time in milliseconds it took to create the context, -1 if it was
+	 *         not created yet
+	 */
+	public static long getInitializationTime() {
+		return initializationTime;
+	}
+}
@@ -0,0 +1,160 @@
+package edu.iris.dmc.station.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+
+/**
+ * Writes a StationXML document incrementally: the root element, then for every
+ * network its start tag, its stations one by one and its end tag.
+ *
+ * Everything is marshalled as fragments into one {@link IndentingXMLStreamWriter},
+ * which declares the namespaces once on the root element and indents every
+ * fragment at its depth, so the output is the same as marshalling the whole
+ * document at once with {@link Marshaller#JAXB_FORMATTED_OUTPUT}. The document
+ * and networks passed in are never modified.
+ *
+ * Only the station currently being written is held in memory. The writer does
+ * not close the underlying stream.
+ *
+ */
+public class StationXmlWriter {
+
+	private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+	private static final String INDENT = "    ";
+
+	private final OutputStream outputStream;
+	private final Marshaller fragmentMarshaller;
+
+	private IndentingXMLStreamWriter writer;
+	private String namespace;
+	private boolean networkStarted;
+
+	public StationXmlWriter(OutputStream outputStream) throws IOException {
+		this.outputStream = outputStream;
+		try {
+			this.fragmentMarshaller = StationXmlContext.getContext().createMarshaller();
+			this.fragmentMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+		} catch (JAXBException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Write a complete document.
+	 * 
+	 * @param document
+	 * @throws IOException
+	 */
+	public void write(FDSNStationXML document) throws IOException {
+		startDocument(document);
+		marshal(document);
+		writeEndDocument();
+	}
+
+	/**
+	 * Write the xml declaration, the root element and all of its children except
+	 * networks. Networks attached to the document are ignored.
+	 *
+	 * @param document
+	 * @throws IOException
+	 */
+	public void writeStartDocument(FDSNStationXML document) throws IOException {
+		startDocument(document);
+		writer.leaveOpen("Network");
+		marshal(document);
+	}
+
+	/**
+	 * Write the network start tag and all network children except stations.
+	 *
+	 * @param network
+	 * @throws IOException
+	 */
+	public void writeStartNetwork(Network network) throws IOException {
+		if (writer == null) {
+			throw new IllegalStateException("Document not started");
+		}
+		if (networkStarted) {
+			throw new IllegalStateException("Network " + network.getCode() + " started inside another network");
+		}
+		writer.leaveOpen("Station");
+		marshal(new JAXBElement<Network>(new QName(namespace, "Network"), Network.class, network));
+		networkStarted = true;
+	}
+
+	/**
+	 *
+	 * @param station
+	 * @throws IOException
+	 */
+	public void write(Station station) throws IOException {
+		if (!networkStarted) {
+			throw new IllegalStateException("Station " + station.getCode() + " written outside of a network");
+		}
+		marshal(new JAXBElement<Station>(new QName(namespace, "Station"), Station.class, station));
+	}
+
+	public void writeEndNetwork() throws IOException {
+		if (!networkStarted) {
+			throw new IllegalStateException("No network to end");
+		}
+		try {
+			writer.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		networkStarted = false;
+	}
+
+	public void writeEndDocument() throws IOException {
+		if (writer == null) {
+			throw new IllegalStateException("Document not started");
+		}
+		try {
+			writer.writeEndDocument();
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		writer = null;
+		networkStarted = false;
+		outputStream.flush();
+	}
+
+	private void startDocument(FDSNStationXML document) throws IOException {
+		if (writer != null) {
+			throw new IllegalStateException("Document already started");
+		}
+		// written here, the stream writer cannot declare a standalone document
+		outputStream.write(DECLARATION.getBytes(StandardCharsets.UTF_8));
+		try {
+			namespace = StationXmlContext.getContext().createJAXBIntrospector().getElementName(document)
+					.getNamespaceURI();
+			writer = new IndentingXMLStreamWriter(
+					XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name()),
+					INDENT);
+		} catch (JAXBException | XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void marshal(Object value) throws IOException {
+		try {
+			fragmentMarshaller.marshal(value, writer);
+		} catch (JAXBException e) {
+			throw new IOException(e);
+		}
+	}
+}
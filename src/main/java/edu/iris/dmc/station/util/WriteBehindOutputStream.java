@@ -0,0 +1,208 @@
+package edu.iris.dmc.station.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Writes to another stream on its own thread, so the caller keeps formatting
+ * records while the previous ones go to disk.
+ *
+ * Bytes are copied into a ring of fixed size logical records allocated once.
+ * The writing thread takes every filled record at once and writes the
+ * contiguous ones with a single call. When the ring is full the caller waits,
+ * a slow disk slows the conversion down instead of filling the heap.
+ *
+ * One caller thread only.
+ *
+ */
+public class WriteBehindOutputStream extends OutputStream {
+
+	private final OutputStream out;
+	private final int recordLength;
+	private final byte[] ring;
+	private final int[] lengths;
+	private final Thread thread;
+
+	// guarded by this
+	private long published;
+	private long written;
+	private IOException error;
+	private boolean closed;
+
+	// caller only, the record being filled is the one after the last published
+	private int slot;
+	private int count;
+
+	/**
+	 *
+	 * @param out          written on another thread and closed with this stream
+	 * @param recordLength bytes per record
+	 * @param records      records the caller can be ahead of the disk
+	 */
+	public WriteBehindOutputStream(OutputStream out, int recordLength, int records) {
+		if (recordLength <= 0 || records < 2) {
+			throw new IllegalArgumentException("Expected a positive record length and at least 2 records");
+		}
+		this.out = out;
+		this.recordLength = recordLength;
+		this.ring = new byte[recordLength * records];
+		this.lengths = new int[records];
+		this.thread = new Thread(this::drain, "write-behind");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void drain() {
+		int records = lengths.length;
+		try {
+			while (true) {
+				long from;
+				long to;
+				synchronized (this) {
+					while (written == published && !closed) {
+						wait();
+					}
+					if (written == published) {
+						return;
+					}
+					from = written;
+					to = published;
+				}
+				while (from < to) {
+					// contiguous full records, up to the end of the ring or a partial record
+					int slot = (int) (from % records);
+					int offset = slot * recordLength;
+					int length = 0;
+					do {
+						length += lengths[slot];
+						from++;
+					} while (from < to && lengths[slot] == recordLength && ++slot < records);
+					out.write(ring, offset, length);
+					synchronized (this) {
+						written = from;
+						notifyAll();
+					}
+				}
+			}
+		} catch (IOException e) {
+			synchronized (this) {
+				error = e;
+				notifyAll();
+			}
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == recordLength) {
+			publish();
+		}
+		if (count == 0) {
+			reserve();
+		}
+		ring[slot * recordLength + count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		while (length > 0) {
+			if (count == recordLength) {
+				publish();
+			}
+			if (count == 0) {
+				reserve();
+			}
+			int n = Math.min(length, recordLength - count);
+			System.arraycopy(bytes, offset, ring, slot * recordLength + count, n);
+			count += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * Wait for the record after the last published to be written.
+	 */
+	private synchronized void reserve() throws IOException {
+		check();
+		while (published - written == lengths.length) {
+			await();
+		}
+	}
+
+	/**
+	 * Hand the record being filled to the writing thread.
+	 */
+	private synchronized void publish() throws IOException {
+		check();
+		lengths[slot] = count;
+		published++;
+		slot = (int) (published % lengths.length);
+		count = 0;
+		notifyAll();
+	}
+
+	/**
+	 * Write everything so far, a partial record included, and flush the
+	 * underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			publish();
+		}
+		synchronized (this) {
+			while (written < published) {
+				await();
+			}
+			check();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+		}
+		try {
+			flush();
+		} finally {
+			synchronized (this) {
+				closed = true;
+				notifyAll();
+			}
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			out.close();
+		}
+	}
+
+	private void check() throws IOException {
+		if (error != null) {
+			throw new IOException("Write behind failed", error);
+		}
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private void await() throws IOException {
+		check();
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		check();
+	}
+}
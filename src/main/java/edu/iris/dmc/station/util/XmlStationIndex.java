@@ -0,0 +1,653 @@
+package edu.iris.dmc.station.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Station;
+
+/**
+ * Where each station epoch of a StationXML document is, so one station can be
+ * unmarshalled without reading the rest of the document.
+ *
+ * The index is built in one pass over the bytes of the document, nothing is
+ * parsed but the start and end tags, and kept next to it as
+ * <code>document.idx</code>. It is rebuilt when the document's size or
+ * modification time no longer match.
+ *
+ * Selected stations are read as a smaller document made of the prolog and root
+ * start tag, the start tag and description of their networks and their own
+ * elements, copied from the original byte for byte, so a
+ * {@link StationIterator} reads them as it would the whole document. Documents
+ * in UTF-16 are not supported.
+ *
+ */
+public class XmlStationIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(XmlStationIndex.class);
+
+	private static final int MAGIC = 0x58494458; // XIDX
+	private static final int VERSION = 1;
+
+	private long documentLength;
+	private long documentModified;
+	private long prologLength;
+	private String rootName;
+	private final List<NetworkEntry> networks = new ArrayList<>();
+	private final List<StationEntry> stations = new ArrayList<>();
+
+	private XmlStationIndex() {
+	}
+
+	/**
+	 * Read the index next to the document, build and write it first if it is
+	 * missing or out of date.
+	 *
+	 * @param document
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static XmlStationIndex load(File document) throws IOException {
+		XmlStationIndex index = current(document);
+		if (index != null) {
+			return index;
+		}
+		File file = indexFile(document);
+		index = build(document);
+		try {
+			index.write(file);
+		} catch (IOException e) {
+			// a read only directory, the index still works in memory
+			logger.warn("Could not write index {}: {}", file, e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 * Read the index next to the document, never build one.
+	 *
+	 * @param document
+	 * @return the index, null if it is missing, out of date or unreadable
+	 */
+	public static XmlStationIndex current(File document) {
+		File file = indexFile(document);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			XmlStationIndex index = read(file);
+			if (index.documentLength == document.length() && index.documentModified == document.lastModified()) {
+				return index;
+			}
+		} catch (IOException e) {
+			logger.warn("Ignoring unreadable index {}: {}", file, e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @param document
+	 * @return where the index of document is kept
+	 */
+	public static File indexFile(File document) {
+		return new File(document.getPath() + ".idx");
+	}
+
+	/**
+	 * Scan the document once.
+	 *
+	 * @param document
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static XmlStationIndex build(File document) throws IOException {
+		XmlStationIndex index = new XmlStationIndex();
+		index.documentLength = document.length();
+		index.documentModified = document.lastModified();
+		try (TagScanner scanner = new TagScanner(new MappedFileInputStream(document))) {
+			NetworkEntry network = null;
+			StationEntry station = null;
+			long description = -1;
+			int depth = 0;
+			Tag tag;
+			while ((tag = scanner.next()) != null) {
+				if (tag.end) {
+					if (depth == 3 && station != null && "Station".equals(tag.localName())) {
+						station.length = tag.position + tag.length - station.position;
+						station = null;
+					} else if (depth == 3 && description >= 0 && "Description".equals(tag.localName())) {
+						network.descriptionPosition = description;
+						network.descriptionLength = (int) (tag.position + tag.length - description);
+						description = -1;
+					} else if (depth == 2) {
+						network = null;
+					}
+					depth--;
+					continue;
+				}
+				depth++;
+				if (depth == 1) {
+					index.rootName = tag.name;
+					index.prologLength = tag.position + tag.length;
+				} else if (depth == 2 && "Network".equals(tag.localName())) {
+					network = new NetworkEntry(tag.attribute("code"), tag.name, tag.position, tag.length);
+					index.networks.add(network);
+				} else if (depth == 3 && network != null && "Description".equals(tag.localName())) {
+					description = tag.position;
+				} else if (depth == 3 && network != null && "Station".equals(tag.localName())) {
+					station = new StationEntry(network, tag.attribute("code"), time(tag.attribute("startDate")),
+							time(tag.attribute("endDate")), tag.position);
+					index.stations.add(station);
+					if (tag.empty) {
+						station.length = tag.length;
+						station = null;
+					}
+				}
+				if (tag.empty) {
+					depth--;
+				}
+			}
+			if (station != null) {
+				throw new IOException("Station " + station.station + " is not closed in " + document);
+			}
+		}
+		if (index.rootName == null) {
+			throw new IOException("Not an XML document: " + document);
+		}
+		return index;
+	}
+
+	public static XmlStationIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a StationXML index or a different version: " + file);
+			}
+			XmlStationIndex index = new XmlStationIndex();
+			index.documentLength = in.readLong();
+			index.documentModified = in.readLong();
+			index.prologLength = in.readLong();
+			index.rootName = in.readUTF();
+			int numberOfNetworks = in.readInt();
+			for (int i = 0; i < numberOfNetworks; i++) {
+				NetworkEntry network = new NetworkEntry(in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+				network.descriptionPosition = in.readLong();
+				network.descriptionLength = in.readInt();
+				index.networks.add(network);
+			}
+			int numberOfStations = in.readInt();
+			for (int i = 0; i < numberOfStations; i++) {
+				StationEntry station = new StationEntry(index.networks.get(in.readInt()), in.readUTF(),
+						SeedIndex.readTime(in), SeedIndex.readTime(in), in.readLong());
+				station.length = in.readLong();
+				index.stations.add(station);
+			}
+			return index;
+		} catch (EOFException | IndexOutOfBoundsException e) {
+			throw new IOException("Truncated StationXML index: " + file, e);
+		}
+	}
+
+	public void write(File file) throws IOException {
+		Map<NetworkEntry, Integer> numbers = new HashMap<>();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(documentLength);
+			out.writeLong(documentModified);
+			out.writeLong(prologLength);
+			out.writeUTF(rootName);
+			out.writeInt(networks.size());
+			for (NetworkEntry network : networks) {
+				numbers.put(network, numbers.size());
+				out.writeUTF(network.network);
+				out.writeUTF(network.name);
+				out.writeLong(network.position);
+				out.writeInt(network.length);
+				out.writeLong(network.descriptionPosition);
+				out.writeInt(network.descriptionLength);
+			}
+			out.writeInt(stations.size());
+			for (StationEntry station : stations) {
+				out.writeInt(numbers.get(station.network));
+				out.writeUTF(station.station);
+				SeedIndex.writeTime(out, station.start);
+				SeedIndex.writeTime(out, station.end);
+				out.writeLong(station.position);
+				out.writeLong(station.length);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return every station epoch in document order
+	 */
+	public List<StationEntry> getStations() {
+		return Collections.unmodifiableList(stations);
+	}
+
+	/**
+	 *
+	 * @param network null for any
+	 * @param station
+	 * @return epochs of the station in document order
+	 */
+	public List<StationEntry> find(String network, String station) {
+		List<StationEntry> found = new ArrayList<>();
+		for (StationEntry entry : stations) {
+			if ((network == null || network.equals(entry.getNetwork())) && station.equals(entry.station)) {
+				found.add(entry);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 *
+	 * @param filter
+	 * @return the station epochs filter accepts by network code, station code
+	 *         and dates, channels are not looked at
+	 */
+	public List<StationEntry> find(StationFilter filter) {
+		List<StationEntry> found = new ArrayList<>();
+		for (StationEntry entry : stations) {
+			if (filter.acceptNetwork(entry.getNetwork())
+					&& filter.acceptStation(entry.station, entry.start, entry.end)) {
+				found.add(entry);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Unmarshal one station epoch of the document this index was built from,
+	 * nothing else is read.
+	 *
+	 * @param document
+	 * @param entry
+	 * @return the station with its network
+	 * @throws IOException
+	 */
+	public Station readStation(File document, StationEntry entry) throws IOException {
+		try (StationIterator it = new StationIterator(open(document, Collections.singletonList(entry)))) {
+			if (!it.hasNext()) {
+				throw new IOException("No station at " + entry.position + " in " + document);
+			}
+			return it.next();
+		}
+	}
+
+	/**
+	 *
+	 * @param document
+	 * @param entries station epochs of this index, in document order
+	 * @return a StationXML document with only these stations
+	 * @throws IOException
+	 */
+	public InputStream open(File document, List<StationEntry> entries) throws IOException {
+		RegionInputStream in = new RegionInputStream(document);
+		in.add(0, prologLength);
+		NetworkEntry network = null;
+		for (StationEntry entry : entries) {
+			if (entry.network != network) {
+				if (network != null) {
+					in.add(("</" + network.name + ">").getBytes(StandardCharsets.US_ASCII));
+				}
+				network = entry.network;
+				in.add(network.position, network.length);
+				if (network.descriptionPosition >= 0) {
+					in.add(network.descriptionPosition, network.descriptionLength);
+				}
+			}
+			in.add(entry.position, entry.length);
+		}
+		if (network != null) {
+			in.add(("</" + network.name + ">").getBytes(StandardCharsets.US_ASCII));
+		}
+		in.add(("</" + rootName + ">").getBytes(StandardCharsets.US_ASCII));
+		return in;
+	}
+
+	private static ZonedDateTime time(String value) {
+		return value == null ? null : IrisUtil.toZonedDateTime(value);
+	}
+
+	/**
+	 * A network start tag and its description.
+	 */
+	static class NetworkEntry {
+		private final String network;
+		private final String name;
+		private final long position;
+		private final int length;
+		private long descriptionPosition = -1;
+		private int descriptionLength;
+
+		NetworkEntry(String network, String name, long position, int length) {
+			this.network = network;
+			this.name = name;
+			this.position = position;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * A station epoch, its element from start tag to end tag.
+	 */
+	public static class StationEntry {
+		private final NetworkEntry network;
+		private final String station;
+		private final ZonedDateTime start;
+		private final ZonedDateTime end;
+		private final long position;
+		private long length;
+
+		StationEntry(NetworkEntry network, String station, ZonedDateTime start, ZonedDateTime end, long position) {
+			this.network = network;
+			this.station = station;
+			this.start = start;
+			this.end = end;
+			this.position = position;
+		}
+
+		public String getNetwork() {
+			return network.network;
+		}
+
+		public String getStation() {
+			return station;
+		}
+
+		public ZonedDateTime getStart() {
+			return start;
+		}
+
+		public ZonedDateTime getEnd() {
+			return end;
+		}
+
+		/**
+		 *
+		 * @return byte offset of the station start tag
+		 */
+		public long getPosition() {
+			return position;
+		}
+
+		/**
+		 *
+		 * @return bytes up to and including the station end tag
+		 */
+		public long getLength() {
+			return length;
+		}
+	}
+
+	/**
+	 * A start or end tag.
+	 */
+	static class Tag {
+		private String name;
+		private boolean end;
+		private boolean empty;
+		private long position;
+		private int length;
+		private final Map<String, String> attributes = new HashMap<>();
+
+		String localName() {
+			return name.substring(name.indexOf(':') + 1);
+		}
+
+		/**
+		 *
+		 * @param localName
+		 * @return the attribute value, entities are not expanded
+		 */
+		String attribute(String localName) {
+			return attributes.get(localName);
+		}
+	}
+
+	/**
+	 * Finds the tags of a document in ASCII compatible encodings, skipping
+	 * comments, CDATA sections, processing instructions and declarations.
+	 */
+	static class TagScanner implements Closeable {
+
+		private final InputStream in;
+		private final byte[] buffer = new byte[65536];
+		private int offset;
+		private int limit;
+		private long position;
+		private final StringBuilder text = new StringBuilder();
+
+		TagScanner(InputStream in) {
+			this.in = in;
+		}
+
+		private int read() throws IOException {
+			if (offset == limit) {
+				int n = in.read(buffer);
+				if (n <= 0) {
+					return -1;
+				}
+				if (position == 0 && n > 1 && (buffer[0] == 0 || buffer[1] == 0 || (buffer[0] & 0xff) == 0xfe
+						|| (buffer[0] & 0xff) == 0xff)) {
+					throw new IOException("UTF-16 documents are not supported");
+				}
+				offset = 0;
+				limit = n;
+			}
+			position++;
+			return buffer[offset++] & 0xff;
+		}
+
+		private int required() throws IOException {
+			int b = read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of document");
+			}
+			return b;
+		}
+
+		/**
+		 *
+		 * @return the next start or end tag, null at the end of the document
+		 * @throws IOException
+		 */
+		Tag next() throws IOException {
+			int b;
+			while ((b = read()) >= 0) {
+				if (b != '<') {
+					continue;
+				}
+				long start = position - 1;
+				b = required();
+				if (b == '?') {
+					skipPast("?>");
+				} else if (b == '!') {
+					b = required();
+					if (b == '-') {
+						skipPast("-->");
+					} else if (b == '[') {
+						skipPast("]]>");
+					} else {
+						skipDeclaration();
+					}
+				} else {
+					Tag tag = new Tag();
+					tag.position = start;
+					if (b == '/') {
+						tag.end = true;
+						b = required();
+					}
+					b = name(b);
+					tag.name = text.toString();
+					attributes(tag, b);
+					tag.length = (int) (position - start);
+					return tag;
+				}
+			}
+			return null;
+		}
+
+		private int name(int b) throws IOException {
+			text.setLength(0);
+			while (b != '>' && b != '/' && b != '=' && !Character.isWhitespace(b)) {
+				text.append((char) b);
+				b = required();
+			}
+			return b;
+		}
+
+		private void attributes(Tag tag, int b) throws IOException {
+			while (b != '>') {
+				if (b == '/') {
+					tag.empty = true;
+				} else if (!Character.isWhitespace(b)) {
+					b = name(b);
+					String name = text.toString();
+					while (b != '=') {
+						b = required();
+					}
+					int quote = required();
+					while (quote != '"' && quote != '\'') {
+						quote = required();
+					}
+					text.setLength(0);
+					while ((b = required()) != quote) {
+						text.append((char) b);
+					}
+					tag.attributes.put(name.substring(name.indexOf(':') + 1), text.toString());
+				}
+				b = required();
+			}
+		}
+
+		private void skipPast(String end) throws IOException {
+			int target = 0;
+			for (int i = 0; i < end.length(); i++) {
+				target = target << 8 | end.charAt(i);
+			}
+			int mask = (1 << 8 * end.length()) - 1;
+			int window = 0;
+			do {
+				window = (window << 8 | required()) & mask;
+			} while (window != target);
+		}
+
+		/**
+		 * A doctype may have an internal subset in brackets.
+		 */
+		private void skipDeclaration() throws IOException {
+			int depth = 0;
+			int quote = 0;
+			int b;
+			while ((b = required()) != '>' || depth > 0 || quote != 0) {
+				if (quote != 0) {
+					if (b == quote) {
+						quote = 0;
+					}
+				} else if (b == '"' || b == '\'') {
+					quote = b;
+				} else if (b == '[') {
+					depth++;
+				} else if (b == ']') {
+					depth--;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads regions of a file and literal bytes one after the other.
+	 */
+	static class RegionInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private final List<Object> regions = new ArrayList<>();
+		private int current;
+		private ByteBuffer buffer;
+
+		RegionInputStream(File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		}
+
+		void add(long position, long length) {
+			regions.add(new long[] { position, length });
+		}
+
+		void add(byte[] bytes) {
+			regions.add(bytes);
+		}
+
+		private ByteBuffer region() throws IOException {
+			while (buffer == null || !buffer.hasRemaining()) {
+				if (current == regions.size()) {
+					return null;
+				}
+				Object region = regions.get(current++);
+				if (region instanceof byte[]) {
+					buffer = ByteBuffer.wrap((byte[]) region);
+				} else {
+					long[] range = (long[]) region;
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1]);
+				}
+			}
+			return buffer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			ByteBuffer region = region();
+			return region == null ? -1 : region.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			ByteBuffer region = region();
+			if (region == null) {
+				return -1;
+			}
+			int count = Math.min(length, region.remaining());
+			region.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package edu.iris.dmc.station.watch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The source files already converted, with their size, modification time and
+ * SHA-256 at the time. Kept in a tab separated file, one line per source, so a
+ * restarted watcher skips what it already did.
+ *
+ * A file whose size and modification time did not change is taken as is, its
+ * content is only hashed when one of them did, a touched but identical file is
+ * not converted again.
+ *
+ * Changes are kept in memory until {@link #save()}, a watcher saves once per
+ * batch of conversions.
+ *
+ * Not thread safe.
+ *
+ */
+public class ConversionManifest {
+
+	private final Path file;
+	private final Map<String, Entry> entries = new TreeMap<>();
+	private boolean changed;
+
+	/**
+	 *
+	 * @param file read if it exists, written by {@link #save()}
+	 * @throws IOException
+	 */
+	public ConversionManifest(Path file) throws IOException {
+		this.file = file;
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.split("\t");
+					if (fields.length != 4) {
+						continue;
+					}
+					entries.put(fields[0],
+							new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param source
+	 * @return true if source was converted and has not changed since
+	 * @throws IOException
+	 */
+	public boolean isCurrent(Path source) throws IOException {
+		Entry entry = entries.get(key(source));
+		if (entry == null) {
+			return false;
+		}
+		BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		if (entry.size == size && entry.modified == modified) {
+			return true;
+		}
+		if (entry.size != size || !entry.hash.equals(hash(source))) {
+			return false;
+		}
+		// touched, same content
+		entries.put(key(source), new Entry(size, modified, entry.hash));
+		changed = true;
+		return true;
+	}
+
+	/**
+	 * Size, modification time and hash of source now. Taken before a conversion,
+	 * a file changed while it is converted does not look current afterwards.
+	 *
+	 * @param source
+	 * @return the state to {@link #add(Path, Entry)} once converted
+	 * @throws IOException
+	 */
+	public Entry stateOf(Path source) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+		return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), hash(source));
+	}
+
+	/**
+	 * Record source as converted in the state it had.
+	 *
+	 * @param source
+	 * @param state  from {@link #stateOf(Path)}
+	 */
+	public void add(Path source, Entry state) {
+		entries.put(key(source), state);
+		changed = true;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Write the changes, if any. Written to a temporary file first so a crash
+	 * never leaves half a manifest.
+	 *
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		if (!changed) {
+			return;
+		}
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				writer.write(e.getKey() + "\t" + entry.size + "\t" + entry.modified + "\t" + entry.hash);
+				writer.newLine();
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		changed = false;
+	}
+
+	private static String key(Path source) {
+		return source.toAbsolutePath().normalize().toString();
+	}
+
+	static String hash(Path source) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[65536];
+		try (InputStream in = Files.newInputStream(source)) {
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, n);
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * What a source was when it was converted.
+	 */
+	public static class Entry {
+		private final long size;
+		private final long modified;
+		private final String hash;
+
+		Entry(long size, long modified, String hash) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package edu.iris.dmc.station.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the files of directory trees that are new or changed, then waits
+ * for more.
+ *
+ * Every file not in the {@link ConversionManifest} as it is is converted on
+ * start. After that the thread blocks on a {@link WatchService} and only wakes
+ * up when something is written. Files are converted once no event came for the
+ * quiet period, a file being copied in is not converted half written. The
+ * manifest is saved once per batch of files converted.
+ *
+ */
+public class DirectoryWatcher implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+	/**
+	 * Converts one source file.
+	 */
+	public interface Conversion {
+		void convert(Path source) throws Exception;
+	}
+
+	private final List<Path> roots;
+	private final ConversionManifest manifest;
+	private final Conversion conversion;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+	private long quietPeriod = 500;
+
+	public DirectoryWatcher(List<Path> roots, ConversionManifest manifest, Conversion conversion)
+			throws IOException {
+		this.roots = roots;
+		this.manifest = manifest;
+		this.conversion = conversion;
+		this.watchService = FileSystems.getDefault().newWatchService();
+	}
+
+	/**
+	 *
+	 * @param milliseconds time without events before changed files are converted
+	 */
+	public void setQuietPeriod(long milliseconds) {
+		this.quietPeriod = milliseconds;
+	}
+
+	/**
+	 * Convert what changed since the manifest was written and start watching.
+	 *
+	 * @return number of files converted
+	 * @throws IOException
+	 */
+	public int start() throws IOException {
+		Set<Path> changed = new LinkedHashSet<>();
+		for (Path root : roots) {
+			register(root, changed);
+		}
+		return convert(changed);
+	}
+
+	/**
+	 * Watch until interrupted or closed, call {@link #start()} first.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				poll(Long.MAX_VALUE);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// closed from another thread
+		}
+	}
+
+	/**
+	 * Wait up to timeout for a change, then convert everything that changed
+	 * until the directories were quiet for the quiet period.
+	 *
+	 * @param timeout milliseconds
+	 * @return number of files converted
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public int poll(long timeout) throws IOException, InterruptedException {
+		WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+		Set<Path> changed = new LinkedHashSet<>();
+		while (key != null) {
+			Path directory = directories.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					// events were lost, look at everything
+					for (Path root : roots) {
+						walk(root, changed, false);
+					}
+					continue;
+				}
+				if (directory == null) {
+					continue;
+				}
+				Path path = directory.resolve((Path) event.context());
+				if (Files.isDirectory(path)) {
+					if (event.kind() == ENTRY_CREATE) {
+						register(path, changed);
+					}
+				} else {
+					changed.add(path);
+				}
+			}
+			if (!key.reset()) {
+				directories.remove(key);
+			}
+			key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS);
+		}
+		return convert(changed);
+	}
+
+	private void register(Path directory, Set<Path> changed) throws IOException {
+		walk(directory, changed, true);
+	}
+
+	private void walk(Path directory, Set<Path> changed, boolean register) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (!dir.equals(directory) && Files.isHidden(dir)) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				if (register) {
+					directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				changed.add(file);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private int convert(Set<Path> changed) throws IOException {
+		List<Path> sources = new ArrayList<>();
+		for (Path path : changed) {
+			if (!Files.isRegularFile(path) || Files.isHidden(path) || Files.size(path) == 0) {
+				continue;
+			}
+			if (!manifest.isCurrent(path)) {
+				sources.add(path);
+			}
+		}
+		int converted = 0;
+		try {
+			for (Path source : sources) {
+				try {
+					// as it is before the conversion, a change made meanwhile is seen next time
+					ConversionManifest.Entry state = manifest.stateOf(source);
+					conversion.convert(source);
+					manifest.add(source, state);
+					converted++;
+				} catch (Exception e) {
+					// left out of the manifest, tried again on its next change
+					logger.error("Failed to convert {}: {}", source, e.getMessage());
+				}
+			}
+		} finally {
+			manifest.save();
+		}
+		if (converted > 0) {
+			logger.info("Converted {} files", converted);
+		}
+		return converted;
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+}
@@ -0,0 +1,82 @@
+package edu.iris.dmc.station.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.iris.dmc.station.converter.ConversionMetrics.Phase;
+
+public class ConversionMetricsTest {
+
+	@Test
+	public void xmlToSeedToXml() throws Exception {
+		File xml = new File(ConversionMetricsTest.class.getClassLoader().getResource("IU_ANMO_BHZ.xml").getFile());
+		File seed = File.createTempFile("metrics", ".dataless");
+		File back = File.createTempFile("metrics", ".xml");
+		seed.deleteOnExit();
+		back.deleteOnExit();
+
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		ConversionMetrics metrics = new ConversionMetrics();
+		XmlToSeedFileConverter.getInstance().convert(xml, seed, args, metrics);
+
+		assertEquals(1, metrics.getFiles());
+		assertEquals(2, metrics.getStations());
+		assertEquals(xml.length(), metrics.getBytesRead());
+		assertEquals(seed.length(), metrics.getBytesWritten());
+		assertEquals(2, metrics.getBlockettes().get(50).longValue());
+		assertEquals(1, metrics.getBlockettes().get(10).longValue());
+		assertTrue(metrics.getDictionaryMisses() > 0);
+		assertTrue(metrics.getDictionaryHits() > 0);
+		assertTrue(metrics.getStageCacheMisses() > 0);
+		for (Phase phase : Phase.values()) {
+			assertTrue(metrics.getNanos(phase) > 0, phase.name());
+		}
+
+		ConversionMetrics reverse = new ConversionMetrics();
+		SeedToXmlFileConverter.getInstance().convert(seed, back, null, reverse);
+		assertEquals(metrics.getStations(), reverse.getStations());
+		assertEquals(metrics.getChannels(), reverse.getChannels());
+		assertEquals(seed.length(), reverse.getBytesRead());
+		assertEquals(2, reverse.getBlockettes().get(50).longValue());
+		assertTrue(reverse.getDictionaryMisses() > 0);
+		assertTrue(reverse.getNanos(Phase.DICTIONARY) > 0);
+
+		metrics.add(reverse);
+		assertEquals(2, metrics.getFiles());
+		assertEquals(4, metrics.getBlockettes().get(50).longValue());
+
+		JsonNode json = new ObjectMapper().readTree(metrics.toJson());
+		assertEquals(4, json.get("stations").asLong());
+		assertEquals(4, json.get("blockettes").get("50").asLong());
+		assertTrue(json.get("phases").has("dictionary"));
+		assertEquals(metrics.getStageCacheMisses(), json.get("stageCacheMisses").asLong());
+	}
+
+	@Test
+	public void xmlToSeedInMemory() throws Exception {
+		File xml = new File(ConversionMetricsTest.class.getClassLoader().getResource("IU_ANMO_BHZ.xml").getFile());
+		File seed = File.createTempFile("metrics", ".dataless");
+		seed.deleteOnExit();
+
+		ConversionMetrics metrics = new ConversionMetrics();
+		XmlToSeedFileConverter.getInstance().convert(xml, seed, null, metrics);
+
+		assertEquals(1, metrics.getFiles());
+		assertEquals(xml.length(), metrics.getBytesRead());
+		assertTrue(metrics.getDictionaryMisses() > 0);
+		assertTrue(metrics.getDictionaryHits() > 0);
+		for (Phase phase : Phase.values()) {
+			assertTrue(metrics.getNanos(phase) > 0, phase.name());
+		}
+	}
+}
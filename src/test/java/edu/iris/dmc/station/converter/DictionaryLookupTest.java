@@ -0,0 +1,85 @@
+package edu.iris.dmc.station.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Units;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.control.dictionary.B034;
+import edu.iris.dmc.seed.control.station.B050;
+import edu.iris.dmc.seed.control.station.B052;
+import edu.iris.dmc.station.mapper.UnitsMapper;
+
+public class DictionaryLookupTest {
+
+	@Test
+	public void sameAsVolume() throws Exception {
+		File source = new File(DictionaryLookupTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		Volume volume = IrisUtil.readSeed(source);
+		DictionaryLookup lookup = new DictionaryLookup(volume);
+
+		for (int pass = 0; pass < 2; pass++) {
+			for (B050 b050 : volume.getB050s()) {
+				assertSame(volume.getDictionaryBlockette(33, b050.getNetworkIdentifierCode()),
+						lookup.get(33, b050.getNetworkIdentifierCode()));
+				for (B052 b052 : b050.getB052s()) {
+					assertNotNull(lookup.get(34, b052.getUnitsOfSignalResponse()));
+					assertSame(volume.getDictionaryBlockette(34, b052.getUnitsOfSignalResponse()),
+							lookup.get(34, b052.getUnitsOfSignalResponse()));
+					assertSame(volume.getDictionaryBlockette(33, b052.getInstrumentIdentifier()),
+							lookup.get(33, b052.getInstrumentIdentifier()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void added() throws Exception {
+		File source = new File(DictionaryLookupTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		Volume volume = IrisUtil.readSeed(source);
+		// filled as a reader would, blockette by blockette
+		DictionaryLookup lookup = new DictionaryLookup(new Volume());
+		for (Blockette blockette : volume.getDictionaryBlockettes()) {
+			lookup.add(blockette);
+		}
+
+		for (B050 b050 : volume.getB050s()) {
+			for (B052 b052 : b050.getB052s()) {
+				assertSame(volume.getDictionaryBlockette(34, b052.getUnitsOfSignalResponse()),
+						lookup.get(34, b052.getUnitsOfSignalResponse()));
+				assertSame(volume.getDictionaryBlockette(33, b052.getInstrumentIdentifier()),
+						lookup.get(33, b052.getInstrumentIdentifier()));
+			}
+		}
+	}
+
+	@Test
+	public void unitsCopied() throws Exception {
+		File source = new File(DictionaryLookupTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		Volume volume = IrisUtil.readSeed(source);
+		DictionaryLookup lookup = new DictionaryLookup(volume);
+
+		for (B050 b050 : volume.getB050s()) {
+			for (B052 b052 : b050.getB052s()) {
+				int key = b052.getUnitsOfSignalResponse();
+				Units units = lookup.getUnits(key);
+				Units again = lookup.getUnits(key);
+				assertNotSame(units, again);
+				assertEquals(units.getName(), again.getName());
+				assertEquals(units.getDescription(), again.getDescription());
+				assertEquals(UnitsMapper.map((B034) volume.getDictionaryBlockette(34, key)).getName(), units.getName());
+				// a caller changing its copy does not change the next one
+				units.setName("changed");
+				assertEquals(again.getName(), lookup.getUnits(key).getName());
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package edu.iris.dmc.station.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.station.mapper.MetadataConverterException;
+
+public class RecordLengthTest {
+
+	@Test
+	public void parse() throws Exception {
+		assertEquals(4096, RecordLength.parse(null));
+		assertEquals(0, RecordLength.parse("auto"));
+		assertEquals(8192, RecordLength.parse("8192"));
+		assertEquals(32768, RecordLength.parse(" 32768 "));
+		assertThrows(MetadataConverterException.class, () -> RecordLength.parse("2048"));
+		assertThrows(MetadataConverterException.class, () -> RecordLength.parse("65536"));
+		assertThrows(MetadataConverterException.class, () -> RecordLength.parse("5000"));
+		assertThrows(MetadataConverterException.class, () -> RecordLength.parse("large"));
+	}
+
+	@Test
+	public void choose() throws Exception {
+		// small volumes keep the default
+		assertEquals(4096, RecordLength.choose(0, 0));
+		assertEquals(4096, RecordLength.choose(5, 1024 * 1024));
+		// many small stations, padding would outweigh the headers saved
+		assertEquals(4096, RecordLength.choose(100000, 20000));
+		assertEquals(8192, RecordLength.choose(1000, 70000));
+		assertEquals(32768, RecordLength.choose(1000, 1024 * 1024));
+	}
+
+	@Test
+	public void estimate() throws Exception {
+		assertEquals(4096, RecordLength.estimate(0));
+		assertEquals(4096, RecordLength.estimate(1024 * 1024));
+		// never the largest records without knowing the stations
+		assertEquals(8192, RecordLength.estimate(1024L * 1024 * 1024));
+	}
+
+	@Test
+	public void toNthPower() throws Exception {
+		assertEquals(12, RecordLength.toNthPower(4096));
+		assertEquals(15, RecordLength.toNthPower(32768));
+	}
+}
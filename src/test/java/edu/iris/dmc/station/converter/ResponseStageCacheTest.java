@@ -0,0 +1,70 @@
+package edu.iris.dmc.station.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Channel;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.ResponseStage;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.station.mapper.CoefficientsMapper;
+import edu.iris.dmc.station.mapper.FirToBlocketteMapper;
+import edu.iris.dmc.station.mapper.PolesZerosMapper;
+
+public class ResponseStageCacheTest {
+
+	@Test
+	public void sameAsMapper() throws Exception {
+		File source = new File(ResponseStageCacheTest.class.getClassLoader().getResource("ANMO.one.xml").getFile());
+		FDSNStationXML document = IrisUtil.readXml(source);
+		ResponseStageCache cache = new ResponseStageCache();
+
+		int stages = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			for (Network network : document.getNetwork()) {
+				for (Station station : network.getStations()) {
+					for (Channel channel : station.getChannels()) {
+						if (channel.getResponse() == null || channel.getResponse().getStage() == null) {
+							continue;
+						}
+						for (ResponseStage stage : channel.getResponse().getStage()) {
+							if (stage.getPolesZeros() != null) {
+								assertSameBlockette(PolesZerosMapper.map(stage.getPolesZeros()),
+										cache.map(stage.getPolesZeros()), cache.map(stage.getPolesZeros()));
+								stages += 2;
+							}
+							if (stage.getCoefficients() != null) {
+								assertSameBlockette(CoefficientsMapper.map(stage.getCoefficients()),
+										cache.map(stage.getCoefficients()), cache.map(stage.getCoefficients()));
+								stages += 2;
+							}
+							if (stage.getFIR() != null) {
+								assertSameBlockette(FirToBlocketteMapper.map(stage.getFIR()), cache.map(stage.getFIR()),
+										cache.map(stage.getFIR()));
+								stages += 2;
+							}
+						}
+					}
+				}
+			}
+		}
+		assertTrue(stages > 0);
+		assertEquals(stages, cache.getHits() + cache.getMisses());
+		assertTrue(cache.getHits() >= stages / 2);
+		assertTrue(cache.getHitRate() >= 0.5);
+	}
+
+	private void assertSameBlockette(Blockette expected, Blockette first, Blockette second) throws Exception {
+		assertNotSame(first, second);
+		assertEquals(expected.toSeedString(), first.toSeedString());
+		assertEquals(expected.toSeedString(), second.toSeedString());
+	}
+}
@@ -1,12 +1,28 @@
 package edu.iris.dmc.station.converter;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
 import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Channel;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.FIR;
+import edu.iris.dmc.fdsn.station.model.FloatType;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.PoleZero;
+import edu.iris.dmc.fdsn.station.model.ResponseStage;
+import edu.iris.dmc.fdsn.station.model.Station;
 import edu.iris.dmc.seed.Volume;
 import edu.iris.dmc.seed.control.dictionary.B031;
 import edu.iris.dmc.seed.control.station.B050;
@@ -130,4 +146,143 @@ public class XmlToSeedFileConverterTest {
 
 	}
 
+	@Test
+	public void large() throws Exception {
+
+		File xml = new File(XmlToSeedFileConverterTest.class.getClassLoader().getResource("IU_ANMO_BHZ.xml").getFile());
+
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		File convertedSeedFile = new File("large.dataless");
+		XmlToSeedFileConverter.getInstance().convert(xml, convertedSeedFile, args);
+
+		assertEquals(0, convertedSeedFile.length() % 4096);
+		Volume volume = IrisUtil.readSeed(convertedSeedFile);
+
+		List<B050> list = volume.getB050s();
+		assertEquals(2, list.size());
+		assertEquals("ANMO", list.get(0).getStationCode());
+		assertEquals("1989,241,00:00:00.0000", list.get(0).getStartTime().toSeedString());
+	}
+
+	@Test
+	public void parallelLarge() throws Exception {
+
+		// more stations than the threads keep in flight
+		File xml = scaledXml(40);
+
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		File sequentialFile = new File("large.dataless");
+		XmlToSeedFileConverter.getInstance().convert(xml, sequentialFile, args);
+
+		args.put("threads", "4");
+		File parallelFile = new File("parallel.dataless");
+		XmlToSeedFileConverter.getInstance().convert(xml, parallelFile, args);
+
+		byte[] sequential = Files.readAllBytes(sequentialFile.toPath());
+		byte[] parallel = Files.readAllBytes(parallelFile.toPath());
+		assertEquals(sequential.length, parallel.length);
+		// the first record holds B010 and its volume time
+		assertArrayEquals(Arrays.copyOfRange(sequential, 4096, sequential.length),
+				Arrays.copyOfRange(parallel, 4096, parallel.length));
+		assertEquals(40, IrisUtil.readSeed(parallelFile).getB050s().size());
+	}
+
+	/**
+	 * ANMO.one.xml with its station repeated copies times, every copy under its
+	 * own station code.
+	 */
+	private File scaledXml(int copies) throws Exception {
+		File source = new File(XmlToSeedFileConverterTest.class.getClassLoader().getResource("ANMO.one.xml").getFile());
+		FDSNStationXML document = IrisUtil.readXml(source);
+		Network network = document.getNetwork().get(0);
+		Station first = network.getStations().get(0);
+		first.setCode("S000");
+		for (int i = 1; i < copies; i++) {
+			Station station = IrisUtil.readXml(source).getNetwork().get(0).getStations().get(0);
+			station.setCode(String.format("S%03d", i));
+			network.addStation(station);
+		}
+		File file = File.createTempFile("scaled-", ".xml");
+		file.deleteOnExit();
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			IrisUtil.marshal(document, outputStream);
+		}
+		return file;
+	}
+
+	@Test
+	public void dictionaryResponses() throws Exception {
+
+		File xml = new File(XmlToSeedFileConverterTest.class.getClassLoader().getResource("ANMO.one.xml").getFile());
+
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		File inlineFile = new File("inline.dataless");
+		XmlToSeedFileConverter.getInstance().convert(xml, inlineFile, args);
+
+		args.put("dictionary", "true");
+		File dictionaryFile = new File("dictionary.dataless");
+		XmlToSeedFileConverter.getInstance().convert(xml, dictionaryFile, args);
+
+		assertTrue(dictionaryFile.length() <= inlineFile.length());
+
+		FDSNStationXML expected = SeedToXmlDocumentConverter.getInstance().convert(IrisUtil.readSeed(inlineFile));
+		FDSNStationXML actual = SeedToXmlDocumentConverter.getInstance().convert(IrisUtil.readSeed(dictionaryFile));
+		List<Channel> expectedChannels = expected.getNetwork().get(0).getStations().get(0).getChannels();
+		List<Channel> actualChannels = actual.getNetwork().get(0).getStations().get(0).getChannels();
+		assertEquals(expectedChannels.size(), actualChannels.size());
+		for (int i = 0; i < expectedChannels.size(); i++) {
+			List<ResponseStage> expectedStages = expectedChannels.get(i).getResponse().getStage();
+			List<ResponseStage> actualStages = actualChannels.get(i).getResponse().getStage();
+			assertEquals(expectedStages.size(), actualStages.size());
+			for (int j = 0; j < expectedStages.size(); j++) {
+				ResponseStage e = expectedStages.get(j);
+				ResponseStage a = actualStages.get(j);
+				assertEquals(e.getPolesZeros() == null, a.getPolesZeros() == null);
+				assertEquals(e.getCoefficients() == null, a.getCoefficients() == null);
+				assertEquals(e.getFIR() == null, a.getFIR() == null);
+				assertEquals(e.getDecimation() == null, a.getDecimation() == null);
+				assertEquals(e.getStageGain() == null, a.getStageGain() == null);
+				if (e.getStageGain() != null) {
+					assertEquals(e.getStageGain().getValue(), a.getStageGain().getValue());
+					assertEquals(e.getStageGain().getFrequency(), a.getStageGain().getFrequency());
+				}
+				if (e.getPolesZeros() != null) {
+					assertEquals(e.getPolesZeros().getNormalizationFactor(), a.getPolesZeros().getNormalizationFactor());
+					assertSamePolesZeros(e.getPolesZeros().getZero(), a.getPolesZeros().getZero());
+					assertSamePolesZeros(e.getPolesZeros().getPole(), a.getPolesZeros().getPole());
+				}
+				if (e.getCoefficients() != null) {
+					assertSameValues(e.getCoefficients().getNumerator(), a.getCoefficients().getNumerator());
+					assertSameValues(e.getCoefficients().getDenominator(), a.getCoefficients().getDenominator());
+				}
+				if (e.getFIR() != null) {
+					List<FIR.NumeratorCoefficient> expectedCoefficients = e.getFIR().getNumeratorCoefficient();
+					List<FIR.NumeratorCoefficient> actualCoefficients = a.getFIR().getNumeratorCoefficient();
+					assertEquals(expectedCoefficients.size(), actualCoefficients.size());
+					for (int k = 0; k < expectedCoefficients.size(); k++) {
+						assertEquals(expectedCoefficients.get(k).getValue(), actualCoefficients.get(k).getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertSamePolesZeros(List<PoleZero> expected, List<PoleZero> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getReal().getValue(), actual.get(i).getReal().getValue());
+			assertEquals(expected.get(i).getImaginary().getValue(), actual.get(i).getImaginary().getValue());
+		}
+	}
+
+	private static void assertSameValues(List<? extends FloatType> expected, List<? extends FloatType> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+		}
+	}
+
 }
@@ -0,0 +1,56 @@
+package edu.iris.dmc.station.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FIR;
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.control.station.B061;
+
+public class FirMapperTest {
+
+	@Test
+	public void coefficients() throws Exception {
+		double[] values = { 1.0E-4, -2.5E-3, 0.25, 0.5 };
+		B061 b061 = FirToBlocketteMapper.map("FIR", "ODD", values);
+		assertEquals('B', b061.getSymetryCode());
+		assertArrayEquals(values, unbox(b061.getCoefficients()));
+
+		FIR fir = FirMapper.build(b061);
+		assertEquals("ODD", fir.getSymmetry());
+		assertEquals(4, fir.getNumeratorCoefficient().size());
+		assertArrayEquals(values, FirMapper.coefficients(fir));
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		File file = new File(FirMapperTest.class.getClassLoader().getResource("CI_OAT.dataless").getFile());
+		int count = 0;
+		for (Blockette blockette : IrisUtil.readSeed(file).getAll()) {
+			if (blockette.getType() != 61) {
+				continue;
+			}
+			B061 b061 = (B061) blockette;
+			FIR fir = FirMapper.build(b061);
+			assertArrayEquals(unbox(b061.getCoefficients()), FirMapper.coefficients(fir));
+			assertEquals(b061.getCoefficients(), FirToBlocketteMapper.map(fir).getCoefficients());
+			count++;
+		}
+		assertTrue(count > 0);
+	}
+
+	private static double[] unbox(List<Double> list) {
+		double[] values = new double[list.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = list.get(i);
+		}
+		return values;
+	}
+}
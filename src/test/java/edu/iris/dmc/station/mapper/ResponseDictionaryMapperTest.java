@@ -0,0 +1,44 @@
+package edu.iris.dmc.station.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.seed.Blockette;
+import edu.iris.dmc.seed.BlocketteFactory;
+import edu.iris.dmc.seed.control.station.B060;
+
+public class ResponseDictionaryMapperTest {
+
+	@Test
+	public void decimation() throws Exception {
+		Blockette b057 = BlocketteFactory.create("0570051046.4000E+040000200000+3.9062E-05+3.9062E-05".getBytes());
+		assertTrue(ResponseDictionaryMapper.isMappable(b057, null));
+
+		Blockette b047 = ResponseDictionaryMapper.map(b057, null);
+		assertEquals(47, b047.getType());
+		assertEquals("04700640000DECIMATION~6.4000E+040000200000+3.9062E-05+3.9062E-05", b047.toSeedString());
+	}
+
+	@Test
+	public void stages() throws Exception {
+		SortedMap<Integer, List<Integer>> stages = new TreeMap<>();
+		stages.put(2, Arrays.asList(3, 4));
+		stages.put(1, Arrays.asList(1, 2));
+		B060 b060 = ResponseDictionaryMapper.map(stages);
+		assertEquals("060003302010200010002020200030004", b060.toSeedString());
+	}
+
+	@Test
+	public void channel() throws Exception {
+		String text = "0520149  BDF0000000~000000+28.209718-177.381430+0004.6000.0000.0+00.00000122.0000E+010.0000E+000000CG~2013,315,00:00:00.0000~2017,045,00:00:00.0000~N";
+		assertFalse(ResponseDictionaryMapper.isMappable(BlocketteFactory.create(text.getBytes()), null));
+	}
+}
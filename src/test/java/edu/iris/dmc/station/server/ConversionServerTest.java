@@ -0,0 +1,104 @@
+package edu.iris.dmc.station.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.seed.Volume;
+
+public class ConversionServerTest {
+
+	@Test
+	public void convert() throws Exception {
+		File dataless = new File(ConversionServerTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		try (ConversionServer server = new ConversionServer(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+			server.start();
+
+			byte[] xml = post(server, "/seed2xml", Files.readAllBytes(dataless.toPath()), 200);
+			assertTrue(new String(xml, 0, 100, StandardCharsets.UTF_8).startsWith("<?xml"));
+
+			byte[] seed = post(server, "/xml2seed?organization=Test", xml, 200);
+			File converted = File.createTempFile("server", ".dataless");
+			converted.deleteOnExit();
+			Files.write(converted.toPath(), seed);
+			Volume original = IrisUtil.readSeed(dataless);
+			Volume volume = IrisUtil.readSeed(converted);
+			assertEquals(original.getB050s().size(), volume.getB050s().size());
+
+			post(server, "/xml2seed", "<nope/>".getBytes(StandardCharsets.UTF_8), 422);
+
+			HttpURLConnection connection = (HttpURLConnection) url(server, "/stats").openConnection();
+			assertEquals(200, connection.getResponseCode());
+			JsonNode stats;
+			try (InputStream in = connection.getInputStream()) {
+				stats = new ObjectMapper().readTree(in);
+			}
+			assertEquals(3, stats.get("latency").get("count").asLong());
+			assertEquals(2, stats.get("conversions").get("files").asLong());
+			assertEquals(2 * original.getB050s().size(), stats.get("conversions").get("stations").asLong());
+		}
+	}
+
+	@Test
+	public void percentiles() throws Exception {
+		LatencyRecorder recorder = new LatencyRecorder(100);
+		assertArrayEquals(new long[] { 0 }, recorder.getPercentiles(50));
+		for (int i = 1; i <= 200; i++) {
+			recorder.record(i);
+		}
+		// only the last 100 are kept
+		assertArrayEquals(new long[] { 101, 150, 190, 200 }, recorder.getPercentiles(1, 50, 90, 100));
+		assertEquals(200, recorder.getCount());
+	}
+
+	@Test
+	public void query() throws Exception {
+		Map<String, String> args = ConversionServer.parseQuery("large&network=IU%2CII&label=a+b");
+		assertEquals("true", args.get("large"));
+		assertEquals("IU,II", args.get("network"));
+		assertEquals("a b", args.get("label"));
+		assertTrue(ConversionServer.parseQuery(null).isEmpty());
+	}
+
+	private static URL url(ConversionServer server, String path) throws Exception {
+		return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+	}
+
+	private static byte[] post(ConversionServer server, String path, byte[] body, int status) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) url(server, path).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+		assertEquals(status, connection.getResponseCode());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, n);
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,107 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.control.station.B050;
+import edu.iris.dmc.seed.control.station.B052;
+
+public class BlocketteScannerTest {
+
+	@Test
+	public void sameChannels() throws Exception {
+		for (String name : new String[] { "CU.dataless", "dataless.CI.DJJB.061013" }) {
+			File file = new File(BlocketteScannerTest.class.getClassLoader().getResource(name).getFile());
+
+			List<String> expected = new ArrayList<>();
+			Volume volume = IrisUtil.readSeed(file);
+			for (B050 b050 : volume.getB050s()) {
+				expected.add(b050.getNetworkCode().trim() + "." + b050.getStationCode().trim() + " "
+						+ IrisUtil.toZonedDateTime(b050.getStartTime()));
+				for (B052 b052 : b050.getB052s()) {
+					expected.add(b052.getLocationCode().trim() + "." + b052.getChannelCode().trim() + " "
+							+ IrisUtil.toZonedDateTime(b052.getStartTime()) + " "
+							+ IrisUtil.toZonedDateTime(b052.getEndTime()));
+				}
+			}
+
+			List<String> actual = new ArrayList<>();
+			try (BlocketteScanner scanner = IrisUtil.scanSeed(file)) {
+				while (scanner.hasNext()) {
+					LazyBlockette blockette = scanner.next();
+					if (blockette.getType() == 50) {
+						actual.add(blockette.getNetworkCode() + "." + blockette.getStationCode() + " "
+								+ blockette.getStartTime());
+					} else if (blockette.getType() == 52) {
+						actual.add(blockette.getLocationCode() + "." + blockette.getChannelCode() + " "
+								+ blockette.getStartTime() + " " + blockette.getEndTime());
+					}
+				}
+			}
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void headerSplitAcrossRecords() throws Exception {
+		int recordLength = 4096;
+		StringBuilder first = new StringBuilder("000001V ");
+		first.append("010").append("0013").append("02.4").append("12");
+		// leaves 3 bytes for the type of the next blockette
+		int fill = recordLength - first.length() - 3;
+		first.append("030").append(fill);
+		while (first.length() < recordLength - 3) {
+			first.append('x');
+		}
+		first.append("034");
+		StringBuilder second = new StringBuilder("000002A*");
+		second.append("0020").append("units of 20 m");
+		second.append("031").append("0010").append("abc");
+		while (second.length() < recordLength) {
+			second.append(' ');
+		}
+		byte[] bytes = (first.toString() + second).getBytes(StandardCharsets.US_ASCII);
+
+		List<LazyBlockette> blockettes = new ArrayList<>();
+		try (BlocketteScanner scanner = new BlocketteScanner(new ByteArrayInputStream(bytes))) {
+			while (scanner.hasNext()) {
+				blockettes.add(scanner.next());
+			}
+		}
+		assertEquals(4, blockettes.size());
+		assertEquals(10, blockettes.get(0).getType());
+		assertEquals(30, blockettes.get(1).getType());
+		LazyBlockette split = blockettes.get(2);
+		assertEquals(34, split.getType());
+		assertEquals("0340020units of 20 m", split.toSeedString());
+		assertEquals(recordLength - 3, split.getPosition());
+		assertEquals(1, split.getSequence());
+		LazyBlockette after = blockettes.get(3);
+		assertEquals(31, after.getType());
+		// after the 17 bytes of the split blockette on this record
+		assertEquals(recordLength + 8 + 17, after.getPosition());
+		assertEquals(2, after.getSequence());
+	}
+
+	@Test
+	public void parseOnce() throws Exception {
+		File file = new File(BlocketteScannerTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		try (BlocketteScanner scanner = IrisUtil.scanSeed(file)) {
+			LazyBlockette blockette = scanner.next();
+			assertEquals(10, blockette.getType());
+			assertEquals(blockette.getLength(), blockette.toSeedString().length());
+			assertSame(blockette.get(), blockette.get());
+			assertEquals(10, blockette.get().getType());
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+
+import org.junit.jupiter.api.Test;
+
+public class IndentingXMLStreamWriterTest {
+
+	@Test
+	public void indent() throws Exception {
+		StringWriter out = new StringWriter();
+		IndentingXMLStreamWriter writer = new IndentingXMLStreamWriter(
+				XMLOutputFactory.newInstance().createXMLStreamWriter(out), "  ");
+		writer.writeStartElement("", "Root", "urn:a");
+		writer.writeNamespace("ns2", "urn:b");
+		writer.writeNamespace("", "urn:a");
+		writer.writeAttribute("schemaVersion", "1.0");
+		writer.writeStartElement("", "Source", "urn:a");
+		writer.writeCharacters("a < b\r\n");
+		writer.writeEndElement();
+		writer.writeStartElement("", "Empty", "urn:a");
+		writer.writeEndElement();
+		writer.writeStartElement("", "Net", "urn:a");
+		writer.writeStartElement("", "Sta", "urn:a");
+		writer.writeAttribute("code", "A");
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.writeEndDocument();
+
+		assertEquals("\n<Root xmlns=\"urn:a\" xmlns:ns2=\"urn:b\" schemaVersion=\"1.0\">\n"
+				+ "  <Source>a &lt; b&#13;\n</Source>\n" + "  <Empty/>\n" + "  <Net>\n" + "    <Sta code=\"A\"/>\n"
+				+ "  </Net>\n" + "</Root>\n", out.toString());
+	}
+
+	@Test
+	public void leaveOpen() throws Exception {
+		StringWriter out = new StringWriter();
+		IndentingXMLStreamWriter writer = new IndentingXMLStreamWriter(
+				XMLOutputFactory.newInstance().createXMLStreamWriter(out), "  ");
+		writer.leaveOpen("Net");
+		writer.writeStartElement("", "Root", "urn:a");
+		writer.writeNamespace("", "urn:a");
+		writer.writeStartElement("", "Net", "urn:a");
+		writer.writeStartElement("", "Sta", "urn:a");
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.writeStartElement("", "Source", "urn:a");
+		writer.writeCharacters("x");
+		writer.writeEndElement();
+		writer.writeEndElement();
+
+		// a fragment written later inside the open element, namespace declared once
+		writer.writeStartElement("", "Net", "urn:a");
+		writer.writeNamespace("", "urn:a");
+		writer.writeAttribute("code", "IU");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+
+		assertEquals("\n<Root xmlns=\"urn:a\">\n" + "  <Source>x</Source>\n" + "  <Net code=\"IU\"/>\n" + "</Root>\n",
+				out.toString());
+	}
+}
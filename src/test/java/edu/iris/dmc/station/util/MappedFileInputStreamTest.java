@@ -0,0 +1,51 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.seed.Volume;
+
+public class MappedFileInputStreamTest {
+
+	@Test
+	public void sameBytes() throws Exception {
+		File file = new File(MappedFileInputStreamTest.class.getClassLoader().getResource("CU.dataless").getFile());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new MappedFileInputStream(file)) {
+			assertEquals(file.length(), in.available());
+			out.write(in.read());
+			byte[] bytes = new byte[4093];
+			int n;
+			while ((n = in.read(bytes)) > 0) {
+				out.write(bytes, 0, n);
+			}
+			assertEquals(-1, in.read());
+		}
+		assertArrayEquals(Files.readAllBytes(file.toPath()), out.toByteArray());
+	}
+
+	@Test
+	public void readSeedMapped() throws Exception {
+		File file = new File(MappedFileInputStreamTest.class.getClassLoader().getResource("CU.dataless").getFile());
+
+		long start = System.nanoTime();
+		Volume volume = IrisUtil.readSeed(file);
+		System.out.println("readSeed " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		start = System.nanoTime();
+		Volume mapped = IrisUtil.readSeedMapped(file);
+		System.out.println("readSeedMapped " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		assertEquals(volume.getB050s().size(), mapped.getB050s().size());
+		assertEquals(volume.size(), mapped.size());
+	}
+}
@@ -0,0 +1,106 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+
+public class ReadAheadInputStreamTest {
+
+	@Test
+	public void gzipRoundTrip() throws Exception {
+		byte[] bytes = new byte[300000];
+		new Random(7).nextBytes(bytes);
+		File file = File.createTempFile("readahead", ".gz");
+		file.deleteOnExit();
+		try (OutputStream out = IrisUtil.newOutputStream(file, true)) {
+			out.write(bytes);
+		}
+		assertTrue(IrisUtil.isGzip(file));
+
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		try (InputStream in = IrisUtil.newInputStream(file)) {
+			assertTrue(in instanceof ReadAheadInputStream);
+			byte[] buffer = new byte[1000];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				read.write(buffer, 0, n);
+			}
+			assertEquals(-1, in.read());
+		}
+		assertArrayEquals(bytes, read.toByteArray());
+	}
+
+	@Test
+	public void plainFile() throws Exception {
+		File file = new File(ReadAheadInputStreamTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		assertFalse(IrisUtil.isGzip(file));
+		try (InputStream in = IrisUtil.newInputStream(file)) {
+			assertFalse(in instanceof ReadAheadInputStream);
+		}
+	}
+
+	@Test
+	public void error() throws Exception {
+		InputStream failing = new InputStream() {
+			private int count;
+
+			@Override
+			public int read() throws IOException {
+				if (count++ >= 10) {
+					throw new IOException("broken");
+				}
+				return 1;
+			}
+		};
+		try (InputStream in = new ReadAheadInputStream(failing, 4, 2)) {
+			byte[] buffer = new byte[100];
+			assertEquals(4, in.read(buffer));
+			assertEquals(4, in.read(buffer));
+			IOException e = assertThrows(IOException.class, () -> {
+				while (in.read(buffer) >= 0) {
+					// the last two bytes before the error
+				}
+			});
+			assertEquals("broken", e.getMessage());
+		}
+	}
+
+	@Test
+	public void closeEarly() throws Exception {
+		InputStream endless = new InputStream() {
+			@Override
+			public int read() {
+				return 0;
+			}
+		};
+		InputStream in = new ReadAheadInputStream(endless, 16, 2);
+		assertEquals(0, in.read());
+		in.close();
+		assertThrows(IOException.class, () -> in.read(new byte[100]));
+	}
+
+	@Test
+	public void emptyGzip() throws Exception {
+		File file = File.createTempFile("readahead", ".gz");
+		file.deleteOnExit();
+		IrisUtil.newOutputStream(file, true).close();
+		try (InputStream in = IrisUtil.newInputStream(file)) {
+			assertEquals(-1, in.read());
+		}
+		assertTrue(Files.size(file.toPath()) > 0);
+	}
+}
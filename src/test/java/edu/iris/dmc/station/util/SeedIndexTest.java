@@ -0,0 +1,72 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.control.station.B050;
+import edu.iris.dmc.station.converter.SeedToXmlDocumentConverter;
+
+public class SeedIndexTest {
+
+	@Test
+	public void readStation() throws Exception {
+		File source = new File(SeedIndexTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		File volume = File.createTempFile("index", ".dataless");
+		volume.deleteOnExit();
+		Files.copy(source.toPath(), volume.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		File indexFile = SeedIndex.indexFile(volume);
+		indexFile.deleteOnExit();
+
+		SeedIndex index = SeedIndex.load(volume);
+		assertTrue(indexFile.exists());
+		Volume all = IrisUtil.readSeed(volume);
+		assertEquals(all.getB050s().size(), index.getStations().size());
+
+		// the second load reads the index back
+		index = SeedIndex.load(volume);
+		List<SeedIndex.StationEntry> found = index.find("CU", "TGUH");
+		assertEquals(1, found.size());
+		SeedIndex.StationEntry entry = found.get(0);
+		assertEquals(volume.length(), entry.getPosition() + entry.getLength());
+
+		B050 expected = null;
+		for (B050 b050 : all.getB050s()) {
+			if ("TGUH".equals(b050.getStationCode().trim())) {
+				expected = b050;
+			}
+		}
+		Volume station = index.readStation(volume, entry);
+		assertEquals(1, station.getB050s().size());
+		assertEquals(expected.getB052s().size(), station.getB050s().get(0).getB052s().size());
+		assertEquals(expected.getB052s().size(), entry.getChannels().size());
+		assertEquals(IrisUtil.toZonedDateTime(expected.getStartTime()), entry.getStart());
+
+		// the dictionary is parsed once
+		assertSame(station.getDictionaryBlockettes().get(0),
+				index.readStation(volume, index.getStations().get(0)).getDictionaryBlockettes().get(0));
+
+		// the station converts on its own
+		assertEquals(1, SeedToXmlDocumentConverter.getInstance().convert(station).getNetwork().get(0).getStations()
+				.size());
+	}
+
+	@Test
+	public void openEpochs() throws Exception {
+		File volume = new File(SeedIndexTest.class.getClassLoader().getResource("CI_OAT.dataless").getFile());
+		SeedIndex index = SeedIndex.build(volume);
+		assertEquals(1, index.getStations().size());
+		assertNull(index.getStations().get(0).getEnd());
+		assertEquals(37, index.getStations().get(0).getChannels().size());
+	}
+}
@@ -0,0 +1,65 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.seed.Volume;
+import edu.iris.dmc.seed.control.station.B050;
+import edu.iris.dmc.station.converter.SeedToXmlFileConverter;
+
+public class SeedStationIteratorTest {
+
+	@Test
+	public void sameStationsAsVolume() throws Exception {
+		File source = new File(SeedStationIteratorTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		Volume volume = IrisUtil.readSeed(source);
+		List<B050> b050s = volume.getB050s();
+
+		try (SeedStationIterator it = new SeedStationIterator(new FileInputStream(source))) {
+			int index = 0;
+			while (it.hasNext()) {
+				Station station = it.next();
+				B050 b050 = b050s.get(index++);
+				assertEquals(b050.getStationCode().trim(), station.getCode());
+				assertEquals(b050.getB052s().size(), station.getChannels().size());
+				assertNotNull(station.getNetwork());
+				assertEquals(b050.getNetworkCode(), station.getNetwork().getCode());
+			}
+			assertEquals(b050s.size(), index);
+		}
+	}
+
+	@Test
+	public void streamingConversion() throws Exception {
+		File source = new File(SeedStationIteratorTest.class.getClassLoader().getResource("CU.dataless").getFile());
+		Volume volume = IrisUtil.readSeed(source);
+
+		Map<String, String> args = new HashMap<>();
+		args.put("large", "true");
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (FileInputStream inputStream = new FileInputStream(source)) {
+			SeedToXmlFileConverter.getInstance().convert(inputStream, outputStream, args);
+		}
+
+		FDSNStationXML document = IrisUtil.readXml(new ByteArrayInputStream(outputStream.toByteArray()));
+		int count = 0;
+		for (Network network : document.getNetwork()) {
+			count += network.getStations().size();
+		}
+		assertEquals(volume.getB050s().size(), count);
+	}
+}
@@ -0,0 +1,100 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Channel;
+import edu.iris.dmc.fdsn.station.model.Station;
+
+public class StationFilterTest {
+
+	@Test
+	public void globs() throws Exception {
+		StationFilter filter = new StationFilter();
+		filter.setNetwork("I?, CU");
+		filter.setStation("AN*");
+		filter.setLocation("--,1*");
+		filter.setChannel("BH?");
+
+		assertTrue(filter.acceptNetwork("IU"));
+		assertTrue(filter.acceptNetwork("cu"));
+		assertFalse(filter.acceptNetwork("IUX"));
+		assertTrue(filter.acceptStation("ANMO", null, null));
+		assertFalse(filter.acceptStation("CCM", null, null));
+		assertTrue(filter.acceptChannel("", "BHZ", null, null));
+		assertTrue(filter.acceptChannel("10", "BH1", null, null));
+		assertFalse(filter.acceptChannel("00", "BHZ", null, null));
+		assertFalse(filter.acceptChannel("", "LHZ", null, null));
+		assertFalse(filter.acceptChannel("", "BH.", null, null));
+	}
+
+	@Test
+	public void timeWindow() throws Exception {
+		StationFilter filter = new StationFilter();
+		filter.setStart(IrisUtil.toZonedDateTime("1995-07-14T00:00:00"));
+		filter.setEnd(IrisUtil.toZonedDateTime("1996-01-01T00:00:00"));
+
+		assertTrue(filter.acceptStation("ANMO", IrisUtil.toZonedDateTime("1989-08-29T00:00:00"),
+				IrisUtil.toZonedDateTime("1995-07-14T00:00:00")));
+		assertTrue(filter.acceptStation("ANMO", IrisUtil.toZonedDateTime("1995-07-14T00:00:00"), null));
+		assertFalse(filter.acceptStation("ANMO", IrisUtil.toZonedDateTime("1989-08-29T00:00:00"),
+				IrisUtil.toZonedDateTime("1991-01-23T22:25:00")));
+		assertFalse(filter.acceptStation("ANMO", IrisUtil.toZonedDateTime("1996-01-01T00:00:01"), null));
+	}
+
+	@Test
+	public void noCriteria() throws Exception {
+		assertNull(StationFilter.of(null));
+		assertNull(StationFilter.of(new HashMap<>()));
+	}
+
+	@Test
+	public void iterator() throws Exception {
+		File source = new File(StationFilterTest.class.getClassLoader().getResource("IU_ANMO_BHZ.xml").getFile());
+		Map<String, String> args = new HashMap<>();
+		args.put("starttime", "1996-01-01T00:00:00");
+		List<Station> stations = read(source, StationFilter.of(args));
+		assertEquals(1, stations.size());
+		assertEquals(IrisUtil.toZonedDateTime("1995-07-14T00:00:00"), stations.get(0).getStartDate());
+
+		source = new File(StationFilterTest.class.getClassLoader().getResource("ANMO.one.xml").getFile());
+		args = new HashMap<>();
+		args.put("channel", "BH?");
+		stations = read(source, StationFilter.of(args));
+		assertEquals(1, stations.size());
+		List<String> codes = new ArrayList<>();
+		for (Channel channel : stations.get(0).getChannels()) {
+			codes.add(channel.getCode());
+		}
+		assertEquals(3, codes.size());
+		assertTrue(codes.contains("BHE") && codes.contains("BHN") && codes.contains("BHZ"));
+
+		args.put("channel", "XYZ");
+		assertEquals(0, read(source, StationFilter.of(args)).size());
+
+		args = new HashMap<>();
+		args.put("network", "CU");
+		assertEquals(0, read(source, StationFilter.of(args)).size());
+	}
+
+	private List<Station> read(File source, StationFilter filter) throws Exception {
+		List<Station> stations = new ArrayList<>();
+		try (StationIterator it = IrisUtil.newStationIterator(source, filter)) {
+			while (it.hasNext()) {
+				stations.add(it.next());
+			}
+		}
+		return stations;
+	}
+}
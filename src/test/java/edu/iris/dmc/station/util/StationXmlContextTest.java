@@ -0,0 +1,36 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+
+public class StationXmlContextTest {
+
+	@Test
+	public void sharedContext() throws Exception {
+		assertSame(StationXmlContext.getContext(), StationXmlContext.getContext());
+		assertSame(StationXmlContext.getMarshaller(), StationXmlContext.getMarshaller());
+		assertSame(StationXmlContext.getUnmarshaller(), StationXmlContext.getUnmarshaller());
+		assertTrue(StationXmlContext.getInitializationTime() >= 0);
+	}
+
+	@Test
+	public void perFileOverhead() throws Exception {
+		File source = new File(StationXmlContextTest.class.getClassLoader().getResource("ANMO.one.xml").getFile());
+
+		for (int i = 0; i < 5; i++) {
+			long start = System.nanoTime();
+			FDSNStationXML document = IrisUtil.readXml(source);
+			assertNotNull(document);
+			System.out.println("read " + source.getName() + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		}
+		System.out.println("JAXBContext initialized in " + StationXmlContext.getInitializationTime() + " ms");
+	}
+}
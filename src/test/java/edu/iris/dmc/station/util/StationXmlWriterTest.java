@@ -0,0 +1,85 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.FDSNStationXML;
+import edu.iris.dmc.fdsn.station.model.Network;
+import edu.iris.dmc.fdsn.station.model.Station;
+import edu.iris.dmc.station.converter.SeedToXmlDocumentConverter;
+
+public class StationXmlWriterTest {
+
+	@Test
+	public void sameAsMarshallerXml() throws Exception {
+		for (File file : resources()) {
+			if (file.getName().endsWith(".xml")) {
+				assertSameOutput(IrisUtil.readXml(file));
+			}
+		}
+	}
+
+	@Test
+	public void sameAsMarshallerSeed() throws Exception {
+		// every other resource is a SEED volume
+		for (File file : resources()) {
+			if (!file.getName().endsWith(".xml")) {
+				assertSameOutput(SeedToXmlDocumentConverter.getInstance().convert(IrisUtil.readSeed(file)));
+			}
+		}
+	}
+
+	@Test
+	public void incremental() throws Exception {
+		FDSNStationXML document = IrisUtil.readXml(resource("ANMO.one.xml"));
+		int networks = document.getNetwork().size();
+		int stations = document.getNetwork().get(0).getStations().size();
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		StationXmlContext.getMarshaller().marshal(document, expected);
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		StationXmlWriter writer = new StationXmlWriter(actual);
+		writer.writeStartDocument(document);
+		for (Network network : document.getNetwork()) {
+			writer.writeStartNetwork(network);
+			for (Station station : network.getStations()) {
+				writer.write(station);
+			}
+			writer.writeEndNetwork();
+		}
+		writer.writeEndDocument();
+
+		assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+		// the document and its networks are left as they were
+		assertEquals(networks, document.getNetwork().size());
+		assertEquals(stations, document.getNetwork().get(0).getStations().size());
+	}
+
+	private File resource(String name) {
+		return new File(StationXmlWriterTest.class.getClassLoader().getResource(name).getFile());
+	}
+
+	private File[] resources() {
+		File[] files = resource("ANMO.one.xml").getParentFile().listFiles(File::isFile);
+		assertTrue(files.length > 1);
+		return files;
+	}
+
+	private void assertSameOutput(FDSNStationXML document) throws Exception {
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		StationXmlContext.getMarshaller().marshal(document, expected);
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		new StationXmlWriter(actual).write(document);
+
+		assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+}
@@ -1,11 +1,19 @@
 package edu.iris.dmc.station.util;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 import org.junit.jupiter.api.Test;
 
 import edu.iris.dmc.IrisUtil;
 import edu.iris.dmc.seed.BTime;
+import edu.iris.dmc.station.mapper.SeedStringBuilder;
 
 public class TimeUtilTest {
 
@@ -16,6 +24,33 @@ public class TimeUtilTest {
 		ZonedDateTime zonedDateTime = IrisUtil.toZonedDateTime(bTime);
 		System.out.println(bTime.toSeedString()+"    "+zonedDateTime);
 	}
+
+	@Test
+	public void toTimeFields() throws Exception {
+		// what toZonedDateTime used to do, format and parse again
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy,DDD,HH:mm:ss.nZ");
+		BTime[] times = new BTime[] { new BTime(2000, 1, 10, 10, 10, 10), new BTime(1989, 241, 0, 0, 0, 0),
+				new BTime(2016, 366, 23, 59, 59, 9999), new BTime(2599, 365, 12, 0, 1, 1) };
+		for (BTime bTime : times) {
+			ZonedDateTime expected = ZonedDateTime.parse(bTime.toSeedString() + "00000+0000", formatter);
+			assertEquals(expected, IrisUtil.toZonedDateTime(bTime));
+		}
+		assertEquals("2000-01-01T10:10:10.001Z", IrisUtil.toZonedDateTime(times[0]).toString());
+		assertNull(IrisUtil.toZonedDateTime((BTime) null));
+	}
+	@Test
+	public void fromString() throws Exception {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss[z]")
+				.withZone(ZoneId.of("UTC"));
+		for (String source : new String[] { "2016-01-01T00:00:00", "1999-12-31T23:59:59", "2016-02-30T00:00:00",
+				"2016-02-29T24:00:00", "2016-01-01T00:00:00UTC" }) {
+			assertEquals(ZonedDateTime.parse(source, formatter), IrisUtil.toZonedDateTime(source));
+		}
+		assertThrows(DateTimeParseException.class, () -> IrisUtil.toZonedDateTime("2016-13-01T00:00:00"));
+		assertEquals("2016,060,01:02:03.0040",
+				SeedStringBuilder.formatDate(IrisUtil.toZonedDateTime("2016-02-29T01:02:03").plusNanos(4000000)));
+	}
+
 	// @Test
 	/*
 	 * public void toBtime() throws Exception { GregorianCalendar c = new
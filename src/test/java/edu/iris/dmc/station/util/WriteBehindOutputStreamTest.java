@@ -0,0 +1,100 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class WriteBehindOutputStreamTest {
+
+	@Test
+	public void sameBytes() throws Exception {
+		byte[] bytes = new byte[100000];
+		new Random(3).nextBytes(bytes);
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		try (WriteBehindOutputStream out = new WriteBehindOutputStream(target, 4096, 4)) {
+			Random random = new Random(5);
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (random.nextInt(10) == 0) {
+					out.write(bytes[offset++]);
+				} else {
+					int n = Math.min(bytes.length - offset, random.nextInt(10000));
+					out.write(bytes, offset, n);
+					offset += n;
+				}
+				if (random.nextInt(20) == 0) {
+					// partial records
+					out.flush();
+					assertEquals(offset, target.size());
+				}
+			}
+		}
+		assertArrayEquals(bytes, target.toByteArray());
+	}
+
+	@Test
+	public void batches() throws Exception {
+		CountingStream target = new CountingStream(5);
+		try (WriteBehindOutputStream out = new WriteBehindOutputStream(target, 512, 8)) {
+			for (int i = 0; i < 64; i++) {
+				out.write(new byte[512]);
+			}
+		}
+		assertEquals(64 * 512, target.bytes);
+		// records that piled up behind a slow write go out together
+		assertTrue(target.writes < 64, "writes: " + target.writes);
+	}
+
+	@Test
+	public void error() throws Exception {
+		OutputStream failing = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("disk full");
+			}
+		};
+		WriteBehindOutputStream out = new WriteBehindOutputStream(failing, 16, 2);
+		IOException e = assertThrows(IOException.class, () -> {
+			for (int i = 0; i < 100; i++) {
+				out.write(new byte[16]);
+			}
+			out.flush();
+		});
+		assertEquals("disk full", e.getCause().getMessage());
+		assertThrows(IOException.class, out::close);
+	}
+
+	private static class CountingStream extends OutputStream {
+		private final long delay;
+		private int writes;
+		private long bytes;
+
+		CountingStream(long delay) {
+			this.delay = delay;
+		}
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writes++;
+			bytes += len;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package edu.iris.dmc.station.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import edu.iris.dmc.IrisUtil;
+import edu.iris.dmc.fdsn.station.model.Station;
+
+public class XmlStationIndexTest {
+
+	@Test
+	public void readStation() throws Exception {
+		File document = copy("IU_ANMO_BHZ.xml");
+		File indexFile = XmlStationIndex.indexFile(document);
+		indexFile.deleteOnExit();
+
+		XmlStationIndex index = XmlStationIndex.load(document);
+		assertTrue(indexFile.exists());
+		assertEquals(2, index.getStations().size());
+
+		// the second load reads the index back
+		index = XmlStationIndex.load(document);
+		List<XmlStationIndex.StationEntry> found = index.find("IU", "ANMO");
+		assertEquals(2, found.size());
+		XmlStationIndex.StationEntry entry = found.get(1);
+		assertEquals(IrisUtil.toZonedDateTime("1995-07-14T00:00:00"), entry.getStart());
+
+		Station station = index.readStation(document, entry);
+		assertEquals("ANMO", station.getCode());
+		assertEquals(entry.getStart(), station.getStartDate());
+		assertEquals("IU", station.getNetwork().getCode());
+	}
+
+	@Test
+	public void open() throws Exception {
+		File document = copy("IU_ANMO_BHZ.xml");
+		XmlStationIndex index = XmlStationIndex.build(document);
+		XmlStationIndex.StationEntry entry = index.getStations().get(1);
+
+		Document selected;
+		try (InputStream in = index.open(document, index.getStations().subList(1, 2))) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			selected = factory.newDocumentBuilder().parse(in);
+		}
+		assertEquals(1, selected.getElementsByTagNameNS("*", "Network").getLength());
+		Element network = (Element) selected.getElementsByTagNameNS("*", "Network").item(0);
+		assertEquals("Global Seismograph Network (GSN - IRIS/USGS)",
+				network.getElementsByTagNameNS("*", "Description").item(0).getTextContent());
+		Element station = (Element) selected.getElementsByTagNameNS("*", "Station").item(0);
+		assertEquals(1, selected.getElementsByTagNameNS("*", "Station").getLength());
+		assertEquals("1995-07-14T00:00:00", station.getAttribute("startDate"));
+		assertEquals(entry.getStart(), IrisUtil.toZonedDateTime(station.getAttribute("startDate")));
+	}
+
+	@Test
+	public void commentsAndSelfClosingElements() throws Exception {
+		File document = File.createTempFile("index", ".xml");
+		document.deleteOnExit();
+		String xml = "<?xml version=\"1.0\"?>\n<!-- <Station code=\"NO\"> -->\n"
+				+ "<s:FDSNStationXML xmlns:s=\"http://www.fdsn.org/xml/station/1\" schemaVersion=\"1.0\">"
+				+ "<s:Network code='XX'><s:Description><![CDATA[</s:Network>]]></s:Description>"
+				+ "<s:Station code=\"A\" startDate=\"2000-01-01T00:00:00\"/>"
+				+ "<s:Station code=\"B\" startDate=\"2001-01-01T00:00:00\"><s:Latitude>1</s:Latitude></s:Station>"
+				+ "</s:Network></s:FDSNStationXML>";
+		Files.write(document.toPath(), xml.getBytes("UTF-8"));
+
+		XmlStationIndex index = XmlStationIndex.build(document);
+		assertEquals(2, index.getStations().size());
+		XmlStationIndex.StationEntry b = index.find("XX", "B").get(0);
+		assertEquals("<s:Station code=\"B\" startDate=\"2001-01-01T00:00:00\"><s:Latitude>1</s:Latitude></s:Station>",
+				xml.substring((int) b.getPosition(), (int) (b.getPosition() + b.getLength())));
+		XmlStationIndex.StationEntry a = index.find("XX", "A").get(0);
+		assertEquals(xml.indexOf("<s:Station code=\"A\""), a.getPosition());
+	}
+
+	private static File copy(String name) throws Exception {
+		File source = new File(XmlStationIndexTest.class.getClassLoader().getResource(name).getFile());
+		File document = File.createTempFile("index", ".xml");
+		document.deleteOnExit();
+		Files.copy(source.toPath(), document.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return document;
+	}
+}
@@ -0,0 +1,99 @@
+package edu.iris.dmc.station.watch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DirectoryWatcherTest {
+
+	@Test
+	public void manifest() throws Exception {
+		Path directory = Files.createTempDirectory("manifest");
+		Path file = write(directory.resolve("a.xml"), "one");
+		Path manifestFile = directory.resolve(".manifest");
+
+		ConversionManifest manifest = new ConversionManifest(manifestFile);
+		assertFalse(manifest.isCurrent(file));
+		ConversionManifest.Entry state = manifest.stateOf(file);
+		// changed while it was converted
+		write(file, "one more");
+		manifest.add(file, state);
+		assertFalse(manifest.isCurrent(file));
+
+		manifest.add(file, manifest.stateOf(file));
+		assertTrue(manifest.isCurrent(file));
+		// nothing written until saved
+		assertFalse(Files.exists(manifestFile));
+		manifest.save();
+
+		// same content, only touched
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+		assertTrue(new ConversionManifest(manifestFile).isCurrent(file));
+
+		write(file, "two");
+		assertFalse(new ConversionManifest(manifestFile).isCurrent(file));
+	}
+
+	@Test
+	public void watch() throws Exception {
+		Path root = Files.createTempDirectory("watch");
+		Path manifestFile = Files.createTempFile("watch", ".manifest");
+		Files.delete(manifestFile);
+		write(root.resolve("a.xml"), "a");
+		write(root.resolve(".hidden.xml"), "hidden");
+
+		List<Path> converted = Collections.synchronizedList(new ArrayList<>());
+		try (DirectoryWatcher watcher = watcher(root, manifestFile, converted)) {
+			assertEquals(1, watcher.start());
+			assertEquals(root.resolve("a.xml"), converted.get(0));
+		}
+
+		// a restart skips what was converted
+		converted.clear();
+		try (DirectoryWatcher watcher = watcher(root, manifestFile, converted)) {
+			assertEquals(0, watcher.start());
+
+			write(root.resolve("b.dataless"), "b");
+			Files.createDirectory(root.resolve("sub"));
+			int count = poll(watcher);
+			write(root.resolve("sub").resolve("c.xml"), "c");
+			count += poll(watcher);
+			assertEquals(2, count);
+			assertTrue(converted.contains(root.resolve("b.dataless")));
+			assertTrue(converted.contains(root.resolve("sub").resolve("c.xml")));
+		}
+	}
+
+	private static DirectoryWatcher watcher(Path root, Path manifestFile, List<Path> converted) throws Exception {
+		DirectoryWatcher watcher = new DirectoryWatcher(Collections.singletonList(root),
+				new ConversionManifest(manifestFile), converted::add);
+		watcher.setQuietPeriod(200);
+		return watcher;
+	}
+
+	/**
+	 * Polling watch services, as on macOS, can take seconds to notice.
+	 */
+	private static int poll(DirectoryWatcher watcher) throws Exception {
+		int count = 0;
+		long end = System.currentTimeMillis() + 15000;
+		while (count == 0 && System.currentTimeMillis() < end) {
+			count = watcher.poll(1000);
+		}
+		return count;
+	}
+
+	private static Path write(Path path, String content) throws Exception {
+		return Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+}